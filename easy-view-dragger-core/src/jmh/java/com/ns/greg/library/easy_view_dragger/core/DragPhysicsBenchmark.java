@@ -0,0 +1,191 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the per-event drag rules across child counts and drag flags, run it with
+ * {@code ./gradlew -p easy-view-dragger-core jmh}.
+ */
+@State(Scope.Thread) @BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DragPhysicsBenchmark {
+
+  private static final int DRAG_DISTANCE = 300;
+
+  @Param({ "1", "4", "20", "64" }) public int childCount;
+
+  @Param({ "LEFT", "RIGHT", "LEFT_RIGHT", "TOP_BOTTOM", "ALL" }) public String flag;
+
+  @Param({ "2", "16" }) public int anchorCount;
+
+  /**
+   * FAN hooks all the others to the first child, CHAIN hooks each child to the one before
+   */
+  @Param({ "FAN", "CHAIN" }) public String hooks;
+
+  /**
+   * NONE moves linearly, RUBBER_BAND reads the resistance curves
+   */
+  @Param({ "NONE", "RUBBER_BAND" }) public String resistance;
+
+  private DragStateTable states;
+  private HookGraph hookGraph;
+  private ResistanceCurve[] curvesX;
+  private ResistanceCurve[] curvesY;
+  private int[] lefts;
+  private int[] tops;
+  private int dx;
+
+  @Setup public void setUp() {
+    int dragFlag = parseFlag(flag);
+    states = new DragStateTable();
+    lefts = new int[childCount];
+    tops = new int[childCount];
+    int[] hookSlots = new int[childCount];
+    // Evenly spaced stops between the min and the max
+    int[] anchorOffsets = new int[anchorCount - 2];
+    for (int i = 0; i < anchorOffsets.length; i++) {
+      anchorOffsets[i] = -DRAG_DISTANCE + 2 * DRAG_DISTANCE * (i + 1) / (anchorCount - 1);
+    }
+
+    for (int i = 0; i < childCount; i++) {
+      int slot = states.acquire();
+      lefts[slot] = i * DRAG_DISTANCE;
+      tops[slot] = 0;
+      states.setDragFlag(slot, dragFlag);
+      states.setDistanceX(slot,
+          new Distance(lefts[slot], DRAG_DISTANCE, DRAG_DISTANCE, anchorOffsets));
+      states.setDistanceY(slot,
+          new Distance(tops[slot], DRAG_DISTANCE, DRAG_DISTANCE, anchorOffsets));
+      hookSlots[i] = slot;
+    }
+
+    if (childCount > 1) {
+      if ("CHAIN".equals(hooks)) {
+        float[] ratios = { 0.5f };
+        for (int i = 0; i < childCount - 1; i++) {
+          states.setHooks(hookSlots[i], new int[] { hookSlots[i + 1] }, ratios, ratios, 1);
+        }
+      } else {
+        System.arraycopy(hookSlots, 1, hookSlots, 0, childCount - 1);
+        states.setHooks(0, hookSlots, childCount - 1);
+      }
+    }
+
+    hookGraph = new HookGraph();
+    hookGraph.compile(states);
+    curvesX = new ResistanceCurve[childCount];
+    curvesY = new ResistanceCurve[childCount];
+    if ("RUBBER_BAND".equals(resistance)) {
+      Resistance rubberBand = new Resistance(Resistance.RUBBER_BAND_DEFAULT, 0.5f, 24);
+      for (int slot = 0; slot < childCount; slot++) {
+        curvesX[slot] = rubberBand.curveX(states, slot, DRAG_DISTANCE, null);
+        curvesY[slot] = rubberBand.curveY(states, slot, DRAG_DISTANCE, null);
+      }
+    }
+
+    dx = 3;
+  }
+
+  private static int parseFlag(String flag) {
+    switch (flag) {
+      case "LEFT":
+        return DragPhysics.LEFT;
+
+      case "RIGHT":
+        return DragPhysics.RIGHT;
+
+      case "LEFT_RIGHT":
+        return DragPhysics.LEFT | DragPhysics.RIGHT;
+
+      case "TOP_BOTTOM":
+        return DragPhysics.TOP | DragPhysics.BOTTOM;
+
+      default:
+        return DragPhysics.LEFT | DragPhysics.TOP | DragPhysics.RIGHT | DragPhysics.BOTTOM;
+    }
+  }
+
+  /**
+   * One MOVE event on the first child, including the hook propagation in the compiled order.
+   */
+  @Benchmark public void moveEvent(Blackhole blackhole) {
+    // Swing back and forth so the children stay inside their distance
+    dx = -dx;
+    float[] moved = hookGraph.getMoved();
+    moved[0] = DragPhysics.hookDeltaX(states, 0, dx, 0.5f);
+    int hookStart = hookGraph.getStart(0);
+    int hookEnd = hookStart + hookGraph.getCount(0);
+    for (int i = hookStart; i < hookEnd; i++) {
+      int hookSlot = hookGraph.getNode(i);
+      int offset = DragPhysics.hookOffsetX(states, hookSlot, lefts[hookSlot],
+          moved[hookGraph.getParent(i)], hookGraph.getRatioX(i));
+      lefts[hookSlot] += offset;
+      moved[hookSlot] = offset;
+    }
+
+    int left = DragPhysics.clampHorizontal(states, 0, lefts[0], dx, 0.5f, curvesX[0]);
+    int top = DragPhysics.clampVertical(states, 0, tops[0], dx, 0.5f, curvesY[0]);
+    lefts[0] = left;
+    tops[0] = top;
+    blackhole.consume(left);
+    blackhole.consume(top);
+  }
+
+  /**
+   * Builds the resistance curve of the first child, as after its distance or size changes.
+   */
+  @Benchmark public void buildCurve(Blackhole blackhole) {
+    blackhole.consume(new Resistance().curveX(states, 0, DRAG_DISTANCE, null));
+  }
+
+  /**
+   * Compiles the hook graph, as after a hook or a child changes.
+   */
+  @Benchmark public void compileHooks(Blackhole blackhole) {
+    HookGraph graph = new HookGraph();
+    graph.compile(states);
+    blackhole.consume(graph);
+  }
+
+  /**
+   * Clamps every child once, as if each of them was captured.
+   */
+  @Benchmark public void clampEverySlot(Blackhole blackhole) {
+    int size = states.size();
+    for (int slot = 0; slot < size; slot++) {
+      int left = lefts[slot];
+      int top = tops[slot];
+      blackhole.consume(
+          DragPhysics.clampHorizontal(states, slot, left, dx, 1f, curvesX[slot]));
+      blackhole.consume(DragPhysics.clampVertical(states, slot, top, dx, 1f, curvesY[slot]));
+    }
+  }
+
+  /**
+   * Release decisions of every child, a slow and a fling release and a pull.
+   */
+  @Benchmark public void releaseDecision(Blackhole blackhole) {
+    int size = states.size();
+    for (int slot = 0; slot < size; slot++) {
+      int left = lefts[slot];
+      int top = tops[slot];
+      blackhole.consume(DragPhysics.releaseX(states, slot, left + dx, 30f,
+          DragPhysics.VELOCITY_THRESHOLD));
+      blackhole.consume(DragPhysics.releaseX(states, slot, left - dx, -800f,
+          DragPhysics.VELOCITY_THRESHOLD));
+      blackhole.consume(DragPhysics.releaseY(states, slot, top + dx, 10f,
+          DragPhysics.VELOCITY_THRESHOLD));
+      blackhole.consume(DragPhysics.pullX(states, slot, left));
+      blackhole.consume(DragPhysics.pullY(states, slot, top));
+    }
+  }
+}
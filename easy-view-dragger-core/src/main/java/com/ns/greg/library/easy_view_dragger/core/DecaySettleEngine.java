@@ -0,0 +1,52 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+/**
+ * Settles with an exponential decay towards the target, it never overshoots. The decay rate is
+ * raised to match the release velocity, so a fling keeps its speed at the start of the settle.
+ */
+public final class DecaySettleEngine implements SettleEngine {
+
+  public static final float FRICTION_DEFAULT = 12f;
+
+  private final float friction;
+
+  public DecaySettleEngine() {
+    this(FRICTION_DEFAULT);
+  }
+
+  /**
+   * @param friction minimum decay rate per second, must be positive
+   */
+  public DecaySettleEngine(float friction) {
+    if (friction <= 0) {
+      throw new IllegalArgumentException("Friction must be positive.");
+    }
+
+    this.friction = friction;
+  }
+
+  @Override public float getDuration(float displacement, float velocity) {
+    float distance = Math.abs(displacement);
+    if (distance <= REST_DISPLACEMENT) {
+      return 0;
+    }
+
+    return (float) (Math.log(distance / REST_DISPLACEMENT) / getRate(displacement, velocity));
+  }
+
+  @Override public float getDisplacement(float displacement, float velocity, float elapsed) {
+    return displacement * (float) Math.exp(-getRate(displacement, velocity) * elapsed);
+  }
+
+  /**
+   * The decay rate, the initial speed of the decay is rate * displacement.
+   */
+  private float getRate(float displacement, float velocity) {
+    // Only the velocity towards the target speeds up the decay
+    if (displacement == 0 || velocity * displacement >= 0) {
+      return friction;
+    }
+
+    return Math.max(friction, -velocity / displacement);
+  }
+}
@@ -0,0 +1,92 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+import java.util.Arrays;
+
+/**
+ * Created by Gregory on 2017/3/21.
+ */
+
+public class Distance {
+
+  private int startPoint;
+  private int dragMin;
+  private int dragMax;
+  private int min;
+  private int max;
+  private int[] anchors;
+
+  public Distance(int startPoint, int dragMin, int dragMax) {
+    this(startPoint, dragMin, dragMax, (int[]) null);
+  }
+
+  /**
+   * @param startPoint start position
+   * @param dragMin distance to the min
+   * @param dragMax distance to the max
+   * @param anchorOffsets extra snap positions, as offsets from the start point. The min and the
+   * max are always anchors, the offsets out of them are clamped
+   */
+  public Distance(int startPoint, int dragMin, int dragMax, int... anchorOffsets) {
+    this.startPoint = startPoint;
+    this.dragMin = dragMin;
+    this.dragMax = dragMax;
+    this.min = startPoint - dragMin;
+    this.max = startPoint + dragMax;
+    int extra = anchorOffsets != null ? anchorOffsets.length : 0;
+    int[] positions = new int[extra + 2];
+    positions[0] = min;
+    positions[1] = max;
+    for (int i = 0; i < extra; i++) {
+      positions[i + 2] = Math.max(min, Math.min(max, startPoint + anchorOffsets[i]));
+    }
+
+    // Sorted and unique, so the release can binary search it
+    Arrays.sort(positions);
+    int count = 1;
+    for (int i = 1; i < positions.length; i++) {
+      if (positions[i] != positions[count - 1]) {
+        positions[count++] = positions[i];
+      }
+    }
+
+    this.anchors = count == positions.length ? positions : Arrays.copyOf(positions, count);
+  }
+
+  public int getStartPoint() {
+    return startPoint;
+  }
+
+  public int getDragMin() {
+    return dragMin;
+  }
+
+  public int getDragMax() {
+    return dragMax;
+  }
+
+  public int getMin() {
+    return min;
+  }
+
+  public int getMax() {
+    return max;
+  }
+
+  /**
+   * Returns the count of the snap positions, the min and the max included.
+   */
+  public int getAnchorCount() {
+    return anchors.length;
+  }
+
+  /**
+   * Returns the snap position at the index, in ascending order.
+   */
+  public int getAnchor(int index) {
+    return anchors[index];
+  }
+
+  @Override public String toString() {
+    return "Min : " + min + ", Max : " + max + ", Anchors : " + Arrays.toString(anchors);
+  }
+}
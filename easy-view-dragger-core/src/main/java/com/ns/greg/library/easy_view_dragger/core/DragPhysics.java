@@ -0,0 +1,357 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+/**
+ * The clamp, hook and release rules of the drag layout, they only work on {@link DragStateTable}
+ * and plain positions so they can run without any view.
+ */
+public final class DragPhysics {
+
+  /*--------------------------------
+   * Direction definitions
+   *-------------------------------*/
+
+  public static final int LEFT = 1;
+  public static final int TOP = 1 << 1;
+  public static final int RIGHT = 1 << 2;
+  public static final int BOTTOM = 1 << 3;
+
+  /*--------------------------------
+   * Constant declaration
+   *-------------------------------*/
+
+  /**
+   * Release velocity in dp per second that settles by direction regardless of position, scale it
+   * by the display density before passing it as a velocity threshold.
+   */
+  public static final int VELOCITY_THRESHOLD = 50;
+
+  /**
+   * Seconds of momentum the release velocity adds to the position before the anchor lookup.
+   */
+  public static final float PROJECTION_TIME = 0.1f;
+
+  private DragPhysics() {
+  }
+
+  /**
+   * Applies the speed factor to the drag delta.
+   *
+   * @param delta drag delta
+   * @param speedFactor factor that directly proportional to speed
+   * @return adjusted delta
+   */
+  public static int adjust(int delta, float speedFactor) {
+    return (int) (delta * speedFactor);
+  }
+
+  /*--------------------------------
+   * Clamp
+   *-------------------------------*/
+
+  /**
+   * Moves the horizontal drag with the slot's {@link #LEFT} and {@link #RIGHT} flag, inside its
+   * distance x or through the curve. The part below a pixel is carried to the next move.
+   *
+   * @param states drag states
+   * @param slot dragged slot
+   * @param current current left of the child
+   * @param dx attempted delta
+   * @param speedFactor factor that directly proportional to speed
+   * @param curve resistance curve of the distance x, null moves linearly up to the bounds
+   * @return the new left, current if the child can't move
+   */
+  public static int clampHorizontal(DragStateTable states, int slot, int current, int dx,
+      float speedFactor, ResistanceCurve curve) {
+    int flag = states.getDragFlag(slot);
+    if (!states.hasDistanceX(slot) || !allows(flag, dx, LEFT, RIGHT)) {
+      states.setCarryX(slot, 0);
+      return current;
+    }
+
+    int start = states.getStartX(slot);
+    float position = current - start + states.getCarryX(slot);
+    float moved = move(position, dx * speedFactor, states.getMinX(slot) - start,
+        states.getMaxX(slot) - start, curve);
+    int left = floor(moved);
+    states.setCarryX(slot, moved - left);
+    return start + left;
+  }
+
+  /**
+   * Moves the vertical drag with the slot's {@link #TOP} and {@link #BOTTOM} flag, see
+   * {@link #clampHorizontal(DragStateTable, int, int, int, float, ResistanceCurve)}.
+   */
+  public static int clampVertical(DragStateTable states, int slot, int current, int dy,
+      float speedFactor, ResistanceCurve curve) {
+    int flag = states.getDragFlag(slot);
+    if (!states.hasDistanceY(slot) || !allows(flag, dy, TOP, BOTTOM)) {
+      states.setCarryY(slot, 0);
+      return current;
+    }
+
+    int start = states.getStartY(slot);
+    float position = current - start + states.getCarryY(slot);
+    float moved = move(position, dy * speedFactor, states.getMinY(slot) - start,
+        states.getMaxY(slot) - start, curve);
+    int top = floor(moved);
+    states.setCarryY(slot, moved - top);
+    return start + top;
+  }
+
+  private static boolean allows(int flag, int delta, int lower, int upper) {
+    return (delta < 0 && (flag & lower) != 0) || (delta > 0 && (flag & upper) != 0);
+  }
+
+  /**
+   * Returns the position after the finger movement, relative to the start of the distance.
+   */
+  private static float move(float position, float finger, int min, int max,
+      ResistanceCurve curve) {
+    if (curve != null) {
+      return curve.toPosition(curve.toFinger(position) + finger);
+    }
+
+    // A position already outside the bounds may only move back
+    float moved = position + finger;
+    if (finger < 0) {
+      float bound = position < min ? position : min;
+      return moved < bound ? bound : moved;
+    }
+
+    float bound = position > max ? position : max;
+    return moved > bound ? bound : moved;
+  }
+
+  private static int floor(float value) {
+    int floor = (int) value;
+    return floor > value ? floor - 1 : floor;
+  }
+
+  /*--------------------------------
+   * Hook
+   *-------------------------------*/
+
+  /**
+   * Returns the horizontal delta a dragged slot passes to its hooks, the attempted delta with the
+   * speed factor if the slot's flag allows its direction, otherwise 0. The slot itself may not
+   * move, e.g. without a distance x. The delta keeps its part below a pixel, the hooks carry it.
+   *
+   * @param states drag states
+   * @param slot dragged slot
+   * @param dx attempted delta
+   * @param speedFactor factor that directly proportional to speed
+   */
+  public static float hookDeltaX(DragStateTable states, int slot, int dx, float speedFactor) {
+    int flag = states.getDragFlag(slot);
+    if ((dx < 0 && (flag & LEFT) != 0) || (dx > 0 && (flag & RIGHT) != 0)) {
+      return dx * speedFactor;
+    }
+
+    return 0;
+  }
+
+  /**
+   * Returns the vertical delta a dragged slot passes to its hooks, see
+   * {@link #hookDeltaX(DragStateTable, int, int, float)}.
+   */
+  public static float hookDeltaY(DragStateTable states, int slot, int dy, float speedFactor) {
+    int flag = states.getDragFlag(slot);
+    if ((dy < 0 && (flag & TOP) != 0) || (dy > 0 && (flag & BOTTOM) != 0)) {
+      return dy * speedFactor;
+    }
+
+    return 0;
+  }
+
+  /**
+   * Returns the horizontal offset of a hooked slot when the slot it follows moves. The part below
+   * a pixel is carried to the next move like the drag's, so a hook with a ratio below 1 doesn't
+   * drift from the slot it follows over a back and forth drag.
+   *
+   * @param states drag states
+   * @param hookSlot slot which be hooked
+   * @param hookedLeft current left of the hooked child
+   * @param parentDx movement of the slot it follows
+   * @param ratio movement of the hooked slot per movement of the slot it follows
+   * @return the offset to apply to the hooked child, kept inside its distance x, 0 if it stays
+   */
+  public static int hookOffsetX(DragStateTable states, int hookSlot, int hookedLeft,
+      float parentDx, float ratio) {
+    if (parentDx == 0 || !states.hasDistanceX(hookSlot)) {
+      return 0;
+    }
+
+    float offset = parentDx * ratio + states.getCarryX(hookSlot);
+    int pixels = floor(offset);
+    int applied = hookOffset(hookedLeft, pixels, states.getMinX(hookSlot),
+        states.getMaxX(hookSlot));
+    // A clamped hook rests at the bound, nothing is left to carry
+    states.setCarryX(hookSlot, applied == pixels ? offset - pixels : 0);
+    return applied;
+  }
+
+  /**
+   * Returns the vertical offset of a hooked slot when the slot it follows moves, see
+   * {@link #hookOffsetX(DragStateTable, int, int, float, float)}.
+   */
+  public static int hookOffsetY(DragStateTable states, int hookSlot, int hookedTop,
+      float parentDy, float ratio) {
+    if (parentDy == 0 || !states.hasDistanceY(hookSlot)) {
+      return 0;
+    }
+
+    float offset = parentDy * ratio + states.getCarryY(hookSlot);
+    int pixels = floor(offset);
+    int applied = hookOffset(hookedTop, pixels, states.getMinY(hookSlot),
+        states.getMaxY(hookSlot));
+    states.setCarryY(hookSlot, applied == pixels ? offset - pixels : 0);
+    return applied;
+  }
+
+  /**
+   * Limits the offset to the bounds, a position already outside may only move back.
+   */
+  private static int hookOffset(int position, int offset, int min, int max) {
+    int moved = position + offset;
+    if (offset < 0) {
+      moved = Math.max(moved, Math.min(position, min));
+    } else {
+      moved = Math.min(moved, Math.max(position, max));
+    }
+
+    return moved - position;
+  }
+
+  /*--------------------------------
+   * Release
+   *-------------------------------*/
+
+  /**
+   * Returns the settle left of a released child, the anchor nearest to the projected position.
+   *
+   * @param states drag states
+   * @param slot released slot
+   * @param left current left
+   * @param xvel x velocity
+   * @param velocityThreshold velocity that settles to the next anchor in its direction
+   * @return the settle left
+   */
+  public static int releaseX(DragStateTable states, int slot, int left, float xvel,
+      float velocityThreshold) {
+    if (!states.hasDistanceX(slot)) {
+      return left;
+    }
+
+    return snap(states, states.getAnchorStartX(slot), states.getAnchorCountX(slot), left, xvel,
+        velocityThreshold);
+  }
+
+  /**
+   * Returns the settle top of a released child, the anchor nearest to the projected position.
+   *
+   * @param states drag states
+   * @param slot released slot
+   * @param top current top
+   * @param yvel y velocity
+   * @param velocityThreshold velocity that settles to the next anchor in its direction
+   * @return the settle top
+   */
+  public static int releaseY(DragStateTable states, int slot, int top, float yvel,
+      float velocityThreshold) {
+    if (!states.hasDistanceY(slot)) {
+      return top;
+    }
+
+    return snap(states, states.getAnchorStartY(slot), states.getAnchorCountY(slot), top, yvel,
+        velocityThreshold);
+  }
+
+  /**
+   * Returns the anchor nearest to the position projected by the velocity, a fling over the
+   * threshold goes at least to the next anchor in its direction.
+   *
+   * @param states drag states
+   * @param start anchor start of the axis
+   * @param count anchor count of the axis
+   * @param position current position
+   * @param velocity velocity of the axis
+   * @param velocityThreshold velocity that settles to the next anchor in its direction
+   * @return the settle position
+   */
+  public static int snap(DragStateTable states, int start, int count, int position,
+      float velocity, float velocityThreshold) {
+    if (count == 0) {
+      return position;
+    }
+
+    float projected = position + velocity * PROJECTION_TIME;
+    int index = lowerBound(states, start, count, projected);
+    if (index == count) {
+      index = count - 1;
+    } else if (index > 0) {
+      // Ties go to the lower anchor
+      float lower = projected - states.getAnchor(start + index - 1);
+      float upper = states.getAnchor(start + index) - projected;
+      if (lower <= upper) {
+        index--;
+      }
+    }
+
+    if (velocity > velocityThreshold) {
+      int next = lowerBound(states, start, count, position + 1);
+      if (next < count && index < next) {
+        index = next;
+      }
+    } else if (velocity < -velocityThreshold) {
+      int previous = lowerBound(states, start, count, position) - 1;
+      if (previous >= 0 && index > previous) {
+        index = previous;
+      }
+    }
+
+    return states.getAnchor(start + index);
+  }
+
+  /**
+   * Returns the index of the first anchor not less than the value, or the count if there is no
+   * such anchor.
+   */
+  private static int lowerBound(DragStateTable states, int start, int count, float value) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (states.getAnchor(start + middle) < value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  /**
+   * Returns the settle left of a pulled child, it always goes back to the min.
+   *
+   * @param states drag states
+   * @param slot released slot
+   * @param left current left
+   * @return the settle left
+   */
+  public static int pullX(DragStateTable states, int slot, int left) {
+    return states.hasDistanceX(slot) ? states.getMinX(slot) : left;
+  }
+
+  /**
+   * Returns the settle top of a pulled child, it always goes back to the min.
+   *
+   * @param states drag states
+   * @param slot released slot
+   * @param top current top
+   * @return the settle top
+   */
+  public static int pullY(DragStateTable states, int slot, int top) {
+    return states.hasDistanceY(slot) ? states.getMinY(slot) : top;
+  }
+}
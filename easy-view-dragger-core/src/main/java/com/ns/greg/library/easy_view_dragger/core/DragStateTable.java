@@ -0,0 +1,512 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+import java.util.Arrays;
+
+/**
+ * Packed per-child drag state, every child owns a slot and all of its state lives in one int
+ * array, so the drag callbacks can read it without boxing, binary searches or allocation.
+ */
+public final class DragStateTable {
+
+  public static final int NO_SLOT = -1;
+
+  /*--------------------------------
+   * Flag bits, the lowest 4 bits are the drag direction flag
+   *-------------------------------*/
+
+  public static final int DIRECTION_MASK = 0xF;
+  private static final int HAS_X = 1 << 4;
+  private static final int HAS_Y = 1 << 5;
+  private static final int IN_USE = 1 << 6;
+
+  /*--------------------------------
+   * Slot layout
+   *-------------------------------*/
+
+  private static final int FLAGS = 0;
+  private static final int EDGE = 1;
+  private static final int X_START = 2;
+  private static final int X_MIN = 3;
+  private static final int X_MAX = 4;
+  private static final int Y_START = 5;
+  private static final int Y_MIN = 6;
+  private static final int Y_MAX = 7;
+  private static final int HOOK_START = 8;
+  private static final int HOOK_COUNT = 9;
+  private static final int X_ANCHOR_START = 10;
+  private static final int X_ANCHOR_COUNT = 11;
+  private static final int Y_ANCHOR_START = 12;
+  private static final int Y_ANCHOR_COUNT = 13;
+  private static final int STRIDE = 14;
+
+  private static final int INITIAL_CAPACITY = 4;
+
+  private int[] data = new int[INITIAL_CAPACITY * STRIDE];
+  private int[] freeSlots = new int[INITIAL_CAPACITY];
+  private int freeCount;
+  private int size;
+  private int[] hooks = new int[INITIAL_CAPACITY];
+  private float[] hookRatiosX = new float[INITIAL_CAPACITY];
+  private float[] hookRatiosY = new float[INITIAL_CAPACITY];
+  private int hookSize;
+  private int hookVersion;
+  private int[] anchors = new int[INITIAL_CAPACITY * 2];
+  private int anchorSize;
+  /**
+   * Sub-pixel remainders of the drag, x and y per slot
+   */
+  private float[] carries = new float[INITIAL_CAPACITY * 2];
+
+  /**
+   * Acquires a slot for a new child, released slots are reused first.
+   *
+   * @return the slot
+   */
+  public int acquire() {
+    int slot;
+    if (freeCount > 0) {
+      slot = freeSlots[--freeCount];
+    } else {
+      slot = size++;
+      if (size * STRIDE > data.length) {
+        data = Arrays.copyOf(data, data.length * 2);
+        carries = Arrays.copyOf(carries, carries.length * 2);
+      }
+    }
+
+    int base = slot * STRIDE;
+    Arrays.fill(data, base, base + STRIDE, 0);
+    data[base + FLAGS] = IN_USE;
+    clearCarry(slot);
+    return slot;
+  }
+
+  /**
+   * Releases the slot of a removed child, it is also removed from the other slots' hooks.
+   *
+   * @param slot the slot
+   */
+  public void release(int slot) {
+    if (!isInUse(slot)) {
+      return;
+    }
+
+    Arrays.fill(data, slot * STRIDE, (slot + 1) * STRIDE, 0);
+    if (freeCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+    }
+
+    freeSlots[freeCount++] = slot;
+    for (int i = 0; i < size; i++) {
+      int base = i * STRIDE;
+      int start = data[base + HOOK_START];
+      int count = data[base + HOOK_COUNT];
+      for (int j = start; j < start + count; j++) {
+        if (hooks[j] == slot) {
+          int last = start + count - 1;
+          hooks[j] = hooks[last];
+          hookRatiosX[j] = hookRatiosX[last];
+          hookRatiosY[j] = hookRatiosY[last];
+          count--;
+          j--;
+        }
+      }
+
+      data[base + HOOK_COUNT] = count;
+    }
+
+    hookVersion++;
+  }
+
+  /**
+   * Returns the upper bound of the slots, iterate with {@link #isInUse(int)}.
+   */
+  public int size() {
+    return size;
+  }
+
+  public boolean isInUse(int slot) {
+    return slot >= 0 && slot < size && (data[slot * STRIDE + FLAGS] & IN_USE) != 0;
+  }
+
+  /*--------------------------------
+   * Drag flag
+   *-------------------------------*/
+
+  public int getDragFlag(int slot) {
+    return data[slot * STRIDE + FLAGS] & DIRECTION_MASK;
+  }
+
+  public void setDragFlag(int slot, int dragFlag) {
+    int index = slot * STRIDE + FLAGS;
+    data[index] = (data[index] & ~DIRECTION_MASK) | (dragFlag & DIRECTION_MASK);
+  }
+
+  /*--------------------------------
+   * Edge flag
+   *-------------------------------*/
+
+  public int getEdgeFlag(int slot) {
+    return data[slot * STRIDE + EDGE];
+  }
+
+  public void setEdgeFlag(int slot, int edgeFlag) {
+    data[slot * STRIDE + EDGE] = edgeFlag;
+  }
+
+  /*--------------------------------
+   * Distance x
+   *-------------------------------*/
+
+  public boolean hasDistanceX(int slot) {
+    return (data[slot * STRIDE + FLAGS] & HAS_X) != 0;
+  }
+
+  public void setDistanceX(int slot, Distance distance) {
+    int base = slot * STRIDE;
+    data[base + FLAGS] |= HAS_X;
+    data[base + X_START] = distance.getStartPoint();
+    data[base + X_MIN] = distance.getMin();
+    data[base + X_MAX] = distance.getMax();
+    setAnchors(base + X_ANCHOR_START, base + X_ANCHOR_COUNT, distance);
+  }
+
+  /**
+   * Returns true if the slot already has the same distance x.
+   */
+  public boolean isDistanceX(int slot, Distance distance) {
+    int base = slot * STRIDE;
+    return hasDistanceX(slot)
+        && data[base + X_START] == distance.getStartPoint()
+        && data[base + X_MIN] == distance.getMin()
+        && data[base + X_MAX] == distance.getMax()
+        && isAnchors(base + X_ANCHOR_START, base + X_ANCHOR_COUNT, distance);
+  }
+
+  /**
+   * Moves the distance x, its anchors included, e.g. when the base position of the child moves.
+   *
+   * @param slot the slot
+   * @param delta moved distance
+   */
+  public void offsetDistanceX(int slot, int delta) {
+    int base = slot * STRIDE;
+    data[base + X_START] += delta;
+    data[base + X_MIN] += delta;
+    data[base + X_MAX] += delta;
+    offsetAnchors(data[base + X_ANCHOR_START], data[base + X_ANCHOR_COUNT], delta);
+  }
+
+  public void clearDistanceX(int slot) {
+    data[slot * STRIDE + FLAGS] &= ~HAS_X;
+  }
+
+  public int getStartX(int slot) {
+    return data[slot * STRIDE + X_START];
+  }
+
+  public int getMinX(int slot) {
+    return data[slot * STRIDE + X_MIN];
+  }
+
+  public int getMaxX(int slot) {
+    return data[slot * STRIDE + X_MAX];
+  }
+
+  public int getAnchorStartX(int slot) {
+    return data[slot * STRIDE + X_ANCHOR_START];
+  }
+
+  public int getAnchorCountX(int slot) {
+    return data[slot * STRIDE + X_ANCHOR_COUNT];
+  }
+
+  /*--------------------------------
+   * Distance y
+   *-------------------------------*/
+
+  public boolean hasDistanceY(int slot) {
+    return (data[slot * STRIDE + FLAGS] & HAS_Y) != 0;
+  }
+
+  public void setDistanceY(int slot, Distance distance) {
+    int base = slot * STRIDE;
+    data[base + FLAGS] |= HAS_Y;
+    data[base + Y_START] = distance.getStartPoint();
+    data[base + Y_MIN] = distance.getMin();
+    data[base + Y_MAX] = distance.getMax();
+    setAnchors(base + Y_ANCHOR_START, base + Y_ANCHOR_COUNT, distance);
+  }
+
+  /**
+   * Returns true if the slot already has the same distance y.
+   */
+  public boolean isDistanceY(int slot, Distance distance) {
+    int base = slot * STRIDE;
+    return hasDistanceY(slot)
+        && data[base + Y_START] == distance.getStartPoint()
+        && data[base + Y_MIN] == distance.getMin()
+        && data[base + Y_MAX] == distance.getMax()
+        && isAnchors(base + Y_ANCHOR_START, base + Y_ANCHOR_COUNT, distance);
+  }
+
+  /**
+   * Moves the distance y, its anchors included, e.g. when the base position of the child moves.
+   *
+   * @param slot the slot
+   * @param delta moved distance
+   */
+  public void offsetDistanceY(int slot, int delta) {
+    int base = slot * STRIDE;
+    data[base + Y_START] += delta;
+    data[base + Y_MIN] += delta;
+    data[base + Y_MAX] += delta;
+    offsetAnchors(data[base + Y_ANCHOR_START], data[base + Y_ANCHOR_COUNT], delta);
+  }
+
+  public void clearDistanceY(int slot) {
+    data[slot * STRIDE + FLAGS] &= ~HAS_Y;
+  }
+
+  public int getStartY(int slot) {
+    return data[slot * STRIDE + Y_START];
+  }
+
+  public int getMinY(int slot) {
+    return data[slot * STRIDE + Y_MIN];
+  }
+
+  public int getMaxY(int slot) {
+    return data[slot * STRIDE + Y_MAX];
+  }
+
+  public int getAnchorStartY(int slot) {
+    return data[slot * STRIDE + Y_ANCHOR_START];
+  }
+
+  public int getAnchorCountY(int slot) {
+    return data[slot * STRIDE + Y_ANCHOR_COUNT];
+  }
+
+  /*--------------------------------
+   * Anchors
+   *-------------------------------*/
+
+  /**
+   * Returns the anchor at the index between the anchor start and the anchor start + the anchor
+   * count of an axis, the anchors of an axis are in ascending order.
+   */
+  public int getAnchor(int index) {
+    return anchors[index];
+  }
+
+  private void setAnchors(int startIndex, int countIndex, Distance distance) {
+    int count = distance.getAnchorCount();
+    if (count > data[countIndex]) {
+      if (anchorSize + count > anchors.length) {
+        compactAnchors();
+        if (anchorSize + count > anchors.length) {
+          anchors = Arrays.copyOf(anchors, Math.max(anchors.length * 2, anchorSize + count));
+        }
+      }
+
+      data[startIndex] = anchorSize;
+      anchorSize += count;
+    }
+
+    int start = data[startIndex];
+    for (int i = 0; i < count; i++) {
+      anchors[start + i] = distance.getAnchor(i);
+    }
+
+    data[countIndex] = count;
+  }
+
+  private void offsetAnchors(int start, int count, int delta) {
+    for (int i = start; i < start + count; i++) {
+      anchors[i] += delta;
+    }
+  }
+
+  private boolean isAnchors(int startIndex, int countIndex, Distance distance) {
+    int count = distance.getAnchorCount();
+    if (data[countIndex] != count) {
+      return false;
+    }
+
+    int start = data[startIndex];
+    for (int i = 0; i < count; i++) {
+      if (anchors[start + i] != distance.getAnchor(i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Moves the live anchor ranges to the front of the anchor array.
+   */
+  private void compactAnchors() {
+    int[] compacted = new int[anchors.length];
+    int position = 0;
+    for (int i = 0; i < size; i++) {
+      int base = i * STRIDE;
+      position = moveAnchors(compacted, position, base + X_ANCHOR_START, base + X_ANCHOR_COUNT);
+      position = moveAnchors(compacted, position, base + Y_ANCHOR_START, base + Y_ANCHOR_COUNT);
+    }
+
+    anchors = compacted;
+    anchorSize = position;
+  }
+
+  private int moveAnchors(int[] compacted, int position, int startIndex, int countIndex) {
+    int count = data[countIndex];
+    System.arraycopy(anchors, data[startIndex], compacted, position, count);
+    data[startIndex] = position;
+    return position + count;
+  }
+
+  /*--------------------------------
+   * Sub-pixel carry
+   *-------------------------------*/
+
+  /**
+   * Returns the part of the x drag below a pixel which is not applied yet, in [0, 1).
+   */
+  public float getCarryX(int slot) {
+    return carries[slot * 2];
+  }
+
+  public void setCarryX(int slot, float carry) {
+    carries[slot * 2] = carry;
+  }
+
+  /**
+   * Returns the part of the y drag below a pixel which is not applied yet, in [0, 1).
+   */
+  public float getCarryY(int slot) {
+    return carries[slot * 2 + 1];
+  }
+
+  public void setCarryY(int slot, float carry) {
+    carries[slot * 2 + 1] = carry;
+  }
+
+  /**
+   * Drops the remainders of the slot, e.g. when a new drag starts.
+   */
+  public void clearCarry(int slot) {
+    carries[slot * 2] = 0;
+    carries[slot * 2 + 1] = 0;
+  }
+
+  /*--------------------------------
+   * Hooks
+   *-------------------------------*/
+
+  /**
+   * Sets the slots which are hooked by the specific slot, they follow it with ratio 1.
+   *
+   * @param slot target slot that owns hook
+   * @param hookSlots slots which be hooked
+   * @param count valid count of hook slots
+   */
+  public void setHooks(int slot, int[] hookSlots, int count) {
+    setHooks(slot, hookSlots, null, null, count);
+  }
+
+  /**
+   * Sets the slots which are hooked by the specific slot.
+   *
+   * @param slot target slot that owns hook
+   * @param hookSlots slots which be hooked
+   * @param ratiosX x movement of each hooked slot per x movement of the target, null for 1
+   * @param ratiosY y movement of each hooked slot per y movement of the target, null for 1
+   * @param count valid count of hook slots
+   */
+  public void setHooks(int slot, int[] hookSlots, float[] ratiosX, float[] ratiosY, int count) {
+    int base = slot * STRIDE;
+    int start = data[base + HOOK_START];
+    if (count > data[base + HOOK_COUNT]) {
+      if (hookSize + count > hooks.length) {
+        compactHooks();
+        if (hookSize + count > hooks.length) {
+          int capacity = Math.max(hooks.length * 2, hookSize + count);
+          hooks = Arrays.copyOf(hooks, capacity);
+          hookRatiosX = Arrays.copyOf(hookRatiosX, capacity);
+          hookRatiosY = Arrays.copyOf(hookRatiosY, capacity);
+        }
+      }
+
+      start = hookSize;
+      hookSize += count;
+    }
+
+    System.arraycopy(hookSlots, 0, hooks, start, count);
+    for (int i = 0; i < count; i++) {
+      hookRatiosX[start + i] = ratiosX != null ? ratiosX[i] : 1;
+      hookRatiosY[start + i] = ratiosY != null ? ratiosY[i] : 1;
+    }
+
+    data[base + HOOK_START] = start;
+    data[base + HOOK_COUNT] = count;
+    hookVersion++;
+  }
+
+  public int getHookStart(int slot) {
+    return data[slot * STRIDE + HOOK_START];
+  }
+
+  public int getHookCount(int slot) {
+    return data[slot * STRIDE + HOOK_COUNT];
+  }
+
+  /**
+   * Returns the hooked slot at the index between {@link #getHookStart(int)} and
+   * {@link #getHookStart(int)} + {@link #getHookCount(int)}.
+   */
+  public int getHook(int index) {
+    return hooks[index];
+  }
+
+  public float getHookRatioX(int index) {
+    return hookRatiosX[index];
+  }
+
+  public float getHookRatioY(int index) {
+    return hookRatiosY[index];
+  }
+
+  /**
+   * Returns a number which changes whenever a hook is set or removed, see {@link HookGraph}.
+   */
+  public int getHookVersion() {
+    return hookVersion;
+  }
+
+  /**
+   * Moves the live hook ranges to the front of the hook array.
+   */
+  private void compactHooks() {
+    int[] compacted = new int[hooks.length];
+    float[] compactedX = new float[hooks.length];
+    float[] compactedY = new float[hooks.length];
+    int position = 0;
+    for (int i = 0; i < size; i++) {
+      int base = i * STRIDE;
+      int start = data[base + HOOK_START];
+      int count = data[base + HOOK_COUNT];
+      System.arraycopy(hooks, start, compacted, position, count);
+      System.arraycopy(hookRatiosX, start, compactedX, position, count);
+      System.arraycopy(hookRatiosY, start, compactedY, position, count);
+      data[base + HOOK_START] = position;
+      position += count;
+    }
+
+    hooks = compacted;
+    hookRatiosX = compactedX;
+    hookRatiosY = compactedY;
+    hookSize = position;
+  }
+}
@@ -0,0 +1,65 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+/**
+ * Settles in a fixed duration with a quintic ease out, the same curve as
+ * {@code ViewDragHelper.smoothSlideViewTo}. The duration follows the release velocity if it heads
+ * to the target, otherwise it grows with the distance.
+ */
+public final class DurationSettleEngine implements SettleEngine {
+
+  public static final int BASE_DURATION = 256;
+  public static final int MAX_DURATION = 600;
+
+  /**
+   * Distance in pixels that doubles the base duration
+   */
+  private static final float REFERENCE_DISTANCE = 800f;
+
+  private final float baseDuration;
+  private final float maxDuration;
+
+  public DurationSettleEngine() {
+    this(BASE_DURATION, MAX_DURATION);
+  }
+
+  /**
+   * @param baseDuration duration in milliseconds of a settle without velocity
+   * @param maxDuration upper bound of the duration in milliseconds
+   */
+  public DurationSettleEngine(int baseDuration, int maxDuration) {
+    if (baseDuration <= 0 || maxDuration < baseDuration) {
+      throw new IllegalArgumentException("Durations must be positive and max >= base.");
+    }
+
+    this.baseDuration = baseDuration / 1000f;
+    this.maxDuration = maxDuration / 1000f;
+  }
+
+  @Override public float getDuration(float displacement, float velocity) {
+    float distance = Math.abs(displacement);
+    if (distance <= REST_DISPLACEMENT) {
+      return 0;
+    }
+
+    float duration;
+    if (velocity * displacement < 0) {
+      // Four times the time the velocity takes to cover the distance, as ViewDragHelper does
+      duration = 4 * distance / Math.abs(velocity);
+    } else {
+      duration = baseDuration * (1 + Math.min(1, distance / REFERENCE_DISTANCE));
+    }
+
+    return Math.min(duration, maxDuration);
+  }
+
+  @Override public float getDisplacement(float displacement, float velocity, float elapsed) {
+    float duration = getDuration(displacement, velocity);
+    if (elapsed >= duration) {
+      return 0;
+    }
+
+    float remaining = 1 - elapsed / duration;
+    // 1 - ((t - 1)^5 + 1)
+    return displacement * remaining * remaining * remaining * remaining * remaining;
+  }
+}
@@ -0,0 +1,231 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+import java.util.Arrays;
+
+/**
+ * The hooks of {@link DragStateTable} compiled into a propagation order per slot. The order of a
+ * slot holds every slot it reaches through the hooks, directly or by levels, each after the
+ * parent it follows, so one pass over the primitive arrays moves the whole graph. A slot reached
+ * by several paths follows the parent which comes first in the order.
+ */
+public final class HookGraph {
+
+  private int version = -1;
+  private int[] starts = new int[0];
+  private int[] counts = new int[0];
+  private int[] nodes = new int[0];
+  private int[] parents = new int[0];
+  private float[] ratiosX = new float[0];
+  private float[] ratiosY = new float[0];
+  /**
+   * Products of the ratios from the root, used to scale the release velocity
+   */
+  private float[] totalRatiosX = new float[0];
+  private float[] totalRatiosY = new float[0];
+  private float[] moved = new float[0];
+
+  /**
+   * Compiles the hooks of the states, nothing is done if they didn't change since the last
+   * compile.
+   *
+   * @param states drag states
+   * @throws IllegalArgumentException if the hooks make a cycle
+   */
+  public void compile(DragStateTable states) {
+    if (version == states.getHookVersion() && starts.length == states.size()) {
+      return;
+    }
+
+    int size = states.size();
+    int[] order = topologicalOrder(states, size);
+    int[] rank = new int[size];
+    for (int i = 0; i < size; i++) {
+      rank[order[i]] = i;
+    }
+
+    starts = new int[size];
+    counts = new int[size];
+    moved = new float[size];
+    int[] parentOf = new int[size];
+    float[] ratioXOf = new float[size];
+    float[] ratioYOf = new float[size];
+    float[] totalXOf = new float[size];
+    float[] totalYOf = new float[size];
+    int position = 0;
+    for (int root = 0; root < size; root++) {
+      starts[root] = position;
+      if (!states.isInUse(root) || states.getHookCount(root) == 0) {
+        continue;
+      }
+
+      // The parents are assigned in the topological order, so the first one wins
+      Arrays.fill(parentOf, DragStateTable.NO_SLOT);
+      parentOf[root] = root;
+      int reached = 0;
+      for (int i = rank[root]; i < size; i++) {
+        int node = order[i];
+        if (parentOf[node] == DragStateTable.NO_SLOT) {
+          continue;
+        }
+
+        int start = states.getHookStart(node);
+        int end = start + states.getHookCount(node);
+        for (int j = start; j < end; j++) {
+          int hook = states.getHook(j);
+          if (parentOf[hook] == DragStateTable.NO_SLOT) {
+            parentOf[hook] = node;
+            ratioXOf[hook] = states.getHookRatioX(j);
+            ratioYOf[hook] = states.getHookRatioY(j);
+            reached++;
+          }
+        }
+      }
+
+      ensureCapacity(position + reached);
+      totalXOf[root] = 1;
+      totalYOf[root] = 1;
+      for (int i = rank[root] + 1; i < size; i++) {
+        int node = order[i];
+        int parent = parentOf[node];
+        if (parent == DragStateTable.NO_SLOT) {
+          continue;
+        }
+
+        nodes[position] = node;
+        parents[position] = parent;
+        ratiosX[position] = ratioXOf[node];
+        ratiosY[position] = ratioYOf[node];
+        // The parent is the root or a node before, so its total is known
+        totalXOf[node] = ratioXOf[node] * totalXOf[parent];
+        totalYOf[node] = ratioYOf[node] * totalYOf[parent];
+        totalRatiosX[position] = totalXOf[node];
+        totalRatiosY[position] = totalYOf[node];
+        position++;
+      }
+
+      counts[root] = position - starts[root];
+    }
+
+    version = states.getHookVersion();
+  }
+
+  /**
+   * Kahn's algorithm over the in use slots.
+   */
+  private static int[] topologicalOrder(DragStateTable states, int size) {
+    int[] inDegrees = new int[size];
+    for (int slot = 0; slot < size; slot++) {
+      if (!states.isInUse(slot)) {
+        continue;
+      }
+
+      int start = states.getHookStart(slot);
+      int end = start + states.getHookCount(slot);
+      for (int j = start; j < end; j++) {
+        inDegrees[states.getHook(j)]++;
+      }
+    }
+
+    int[] order = new int[size];
+    int head = 0;
+    int tail = 0;
+    for (int slot = 0; slot < size; slot++) {
+      if (inDegrees[slot] == 0) {
+        order[tail++] = slot;
+      }
+    }
+
+    while (head < tail) {
+      int slot = order[head++];
+      if (!states.isInUse(slot)) {
+        continue;
+      }
+
+      int start = states.getHookStart(slot);
+      int end = start + states.getHookCount(slot);
+      for (int j = start; j < end; j++) {
+        int hook = states.getHook(j);
+        if (--inDegrees[hook] == 0) {
+          order[tail++] = hook;
+        }
+      }
+    }
+
+    if (tail < size) {
+      throw new IllegalArgumentException("Hooks make a cycle.");
+    }
+
+    return order;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= nodes.length) {
+      return;
+    }
+
+    int length = Math.max(capacity, nodes.length * 2);
+    nodes = Arrays.copyOf(nodes, length);
+    parents = Arrays.copyOf(parents, length);
+    ratiosX = Arrays.copyOf(ratiosX, length);
+    ratiosY = Arrays.copyOf(ratiosY, length);
+    totalRatiosX = Arrays.copyOf(totalRatiosX, length);
+    totalRatiosY = Arrays.copyOf(totalRatiosY, length);
+  }
+
+  /*--------------------------------
+   * Order of a slot
+   *-------------------------------*/
+
+  public int getStart(int slot) {
+    return slot < starts.length ? starts[slot] : 0;
+  }
+
+  public int getCount(int slot) {
+    return slot < counts.length ? counts[slot] : 0;
+  }
+
+  /**
+   * Returns the hooked slot at the index between {@link #getStart(int)} and
+   * {@link #getStart(int)} + {@link #getCount(int)}.
+   */
+  public int getNode(int index) {
+    return nodes[index];
+  }
+
+  /**
+   * Returns the slot the node at the index follows, the root or a node before it.
+   */
+  public int getParent(int index) {
+    return parents[index];
+  }
+
+  public float getRatioX(int index) {
+    return ratiosX[index];
+  }
+
+  public float getRatioY(int index) {
+    return ratiosY[index];
+  }
+
+  /**
+   * Returns the x movement of the node at the index per x movement of the root.
+   */
+  public float getTotalRatioX(int index) {
+    return totalRatiosX[index];
+  }
+
+  /**
+   * Returns the y movement of the node at the index per y movement of the root.
+   */
+  public float getTotalRatioY(int index) {
+    return totalRatiosY[index];
+  }
+
+  /**
+   * Returns a scratch array indexed by slot for the movement of each node during a propagation,
+   * its values are only valid for the root and the nodes visited so far.
+   */
+  public float[] getMoved() {
+    return moved;
+  }
+}
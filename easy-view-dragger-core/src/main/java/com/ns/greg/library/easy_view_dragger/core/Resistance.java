@@ -0,0 +1,102 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+/**
+ * Drag resistance of a child, a rubber band past the bounds of its distance and an eased
+ * resistance near its anchors. It's turned into a {@link ResistanceCurve} per distance and size
+ * of the child, so the drag only reads lookup tables. The resistance and its curves are
+ * immutable, the caller keeps the curve of each child and passes it back to reuse it.
+ */
+public final class Resistance {
+
+  /**
+   * The rubber band constant of the platform overscroll, lower stretches less
+   */
+  public static final float RUBBER_BAND_DEFAULT = 0.55f;
+
+  private final float rubberBand;
+  private final float anchorResistance;
+  private final int anchorRange;
+
+  /**
+   * Rubber band past the bounds without anchor resistance.
+   */
+  public Resistance() {
+    this(RUBBER_BAND_DEFAULT, 0, 0);
+  }
+
+  /**
+   * @param rubberBand rubber band constant past the bounds, 0 stops at the bounds
+   * @param anchorResistance resistance at an anchor, from 0 for none to below 1
+   * @param anchorRange distance in pixels from an anchor where the resistance eases out
+   */
+  public Resistance(float rubberBand, float anchorResistance, int anchorRange) {
+    if (rubberBand < 0) {
+      throw new IllegalArgumentException("Rubber band must be non-negative.");
+    }
+
+    if (anchorResistance < 0 || anchorResistance >= 1 || anchorRange < 0) {
+      throw new IllegalArgumentException("Anchor resistance must be in [0, 1), range >= 0.");
+    }
+
+    this.rubberBand = rubberBand;
+    this.anchorResistance = anchorResistance;
+    this.anchorRange = anchorRange;
+  }
+
+  public float getRubberBand() {
+    return rubberBand;
+  }
+
+  public float getAnchorResistance() {
+    return anchorResistance;
+  }
+
+  public int getAnchorRange() {
+    return anchorRange;
+  }
+
+  /**
+   * Returns the curve of the slot's distance x, the current one if it still fits.
+   *
+   * @param states drag states
+   * @param slot the slot, it must have a distance x
+   * @param dimension width of the child, the rubber band stretches less than it
+   * @param current current curve of the slot, nullable
+   */
+  public ResistanceCurve curveX(DragStateTable states, int slot, int dimension,
+      ResistanceCurve current) {
+    int start = states.getStartX(slot);
+    return curve(states, start, states.getMinX(slot) - start, states.getMaxX(slot) - start,
+        states.getAnchorStartX(slot), states.getAnchorCountX(slot), dimension, current);
+  }
+
+  /**
+   * Returns the curve of the slot's distance y, the current one if it still fits.
+   *
+   * @param states drag states
+   * @param slot the slot, it must have a distance y
+   * @param dimension height of the child, the rubber band stretches less than it
+   * @param current current curve of the slot, nullable
+   */
+  public ResistanceCurve curveY(DragStateTable states, int slot, int dimension,
+      ResistanceCurve current) {
+    int start = states.getStartY(slot);
+    return curve(states, start, states.getMinY(slot) - start, states.getMaxY(slot) - start,
+        states.getAnchorStartY(slot), states.getAnchorCountY(slot), dimension, current);
+  }
+
+  private ResistanceCurve curve(DragStateTable states, int start, int min, int max,
+      int anchorStart, int anchorCount, int dimension, ResistanceCurve current) {
+    if (current != null && current.isFor(this, states, start, min, max, anchorStart,
+        anchorCount, dimension)) {
+      return current;
+    }
+
+    int[] anchors = new int[anchorCount];
+    for (int i = 0; i < anchorCount; i++) {
+      anchors[i] = states.getAnchor(anchorStart + i) - start;
+    }
+
+    return new ResistanceCurve(this, min, max, anchors, dimension);
+  }
+}
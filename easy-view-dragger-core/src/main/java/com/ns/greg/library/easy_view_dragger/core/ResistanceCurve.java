@@ -0,0 +1,168 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+/**
+ * Lookup tables of a {@link Resistance} over one distance, relative to the start of the
+ * distance. The finger table maps a position to the finger movement that reaches it, the
+ * position table maps it back, so a drag delta of any size is one lookup in each table without
+ * any math call.
+ */
+public final class ResistanceCurve {
+
+  /**
+   * Rubber band stretch limit, in dimensions of the child
+   */
+  private static final float OVERSCROLL_LIMIT = 0.5f;
+
+  private final Resistance resistance;
+  private final int min;
+  private final int max;
+  private final int[] anchors;
+  private final int dimension;
+  /**
+   * Lowest position of the tables
+   */
+  private final int low;
+  private final int high;
+  /**
+   * Finger movement per position from low
+   */
+  private final float[] fingers;
+  /**
+   * Finger movement of positions[0], a whole number like the finger movement at the bounds, so
+   * the positions at the bounds are not interpolated across the kink of the rubber band
+   */
+  private final float origin;
+  /**
+   * Position per finger movement from the origin
+   */
+  private final float[] positions;
+
+  ResistanceCurve(Resistance resistance, int min, int max, int[] anchors, int dimension) {
+    this.resistance = resistance;
+    this.min = min;
+    this.max = max;
+    this.anchors = anchors;
+    this.dimension = dimension;
+    float rubberBand = resistance.getRubberBand();
+    int overscroll = rubberBand > 0 ? (int) (dimension * OVERSCROLL_LIMIT) : 0;
+    low = min - overscroll;
+    high = max + overscroll;
+    fingers = new float[high - low + 1];
+    // Inside the bounds the finger integrates the inverse of the gain
+    float finger = min;
+    fingers[min - low] = finger;
+    for (int position = min + 1; position <= max; position++) {
+      finger += 1f / getGain(position - 0.5f);
+      fingers[position - low] = finger;
+    }
+
+    // Past the bounds the finger inverts the rubber band (1 - 1 / (x * c / d + 1)) * d
+    for (int y = 1; y <= overscroll; y++) {
+      float x = dimension / rubberBand * y / (dimension - y);
+      fingers[min - y - low] = fingers[min - low] - x;
+      fingers[max + y - low] = fingers[max - low] + x;
+    }
+
+    int last = fingers.length - 1;
+    origin = (float) Math.floor(fingers[0]);
+    positions = new float[(int) (fingers[last] - origin) + 2];
+    int index = 0;
+    for (int i = 0; i < positions.length; i++) {
+      float target = origin + i;
+      while (index < last - 1 && fingers[index + 1] < target) {
+        index++;
+      }
+
+      if (index >= last) {
+        positions[i] = high;
+        continue;
+      }
+
+      float fraction = (target - fingers[index]) / (fingers[index + 1] - fingers[index]);
+      positions[i] = low + index + Math.max(0, Math.min(1, fraction));
+    }
+  }
+
+  /**
+   * Gain of the finger movement at the position, eased down near the anchors.
+   */
+  private float getGain(float position) {
+    float anchorResistance = resistance.getAnchorResistance();
+    int range = resistance.getAnchorRange();
+    if (anchorResistance == 0 || range == 0) {
+      return 1;
+    }
+
+    float nearest = range;
+    for (int anchor : anchors) {
+      nearest = Math.min(nearest, Math.abs(position - anchor));
+    }
+
+    float t = 1 - nearest / range;
+    return 1 - anchorResistance * t * t * (3 - 2 * t);
+  }
+
+  /**
+   * Returns the finger movement which reaches the position.
+   *
+   * @param position position relative to the start of the distance
+   */
+  public float toFinger(float position) {
+    float offset = position - low;
+    int last = fingers.length - 1;
+    if (offset <= 0) {
+      return fingers[0] + offset;
+    }
+
+    if (offset >= last) {
+      return fingers[last] + offset - last;
+    }
+
+    int index = (int) offset;
+    float fraction = offset - index;
+    return fingers[index] + (fingers[index + 1] - fingers[index]) * fraction;
+  }
+
+  /**
+   * Returns the position reached by the finger movement, it stops at the stretch limit.
+   *
+   * @return position relative to the start of the distance
+   */
+  public float toPosition(float finger) {
+    float offset = finger - origin;
+    int last = positions.length - 1;
+    if (offset <= 0) {
+      return low;
+    }
+
+    if (offset >= last) {
+      return high;
+    }
+
+    int index = (int) offset;
+    float fraction = offset - index;
+    return positions[index] + (positions[index + 1] - positions[index]) * fraction;
+  }
+
+  /**
+   * Returns true if the curve is built from the same resistance, distance and dimension.
+   */
+  boolean isFor(Resistance resistance, DragStateTable states, int start, int min, int max,
+      int anchorStart, int anchorCount, int dimension) {
+    if (this.resistance != resistance
+        || this.min != min
+        || this.max != max
+        || this.dimension != dimension
+        || anchors.length != anchorCount) {
+      return false;
+    }
+
+    for (int i = 0; i < anchorCount; i++) {
+      if (anchors[i] != states.getAnchor(anchorStart + i) - start) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
@@ -0,0 +1,33 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+/**
+ * Physics of a settle, it moves a released child from its position to the target. The motion is
+ * a function of the initial displacement, the initial velocity and the elapsed time, so an engine
+ * keeps no state and can be shared by all the settling children.
+ */
+public interface SettleEngine {
+
+  /**
+   * Distance in pixels from the target that is considered arrived.
+   */
+  float REST_DISPLACEMENT = 0.5f;
+
+  /**
+   * Returns the time the settle takes, after it the child is placed at the target.
+   *
+   * @param displacement initial displacement from the target in pixels
+   * @param velocity initial velocity in pixels per second
+   * @return duration in seconds
+   */
+  float getDuration(float displacement, float velocity);
+
+  /**
+   * Returns the displacement from the target at the elapsed time.
+   *
+   * @param displacement initial displacement from the target in pixels
+   * @param velocity initial velocity in pixels per second
+   * @param elapsed elapsed time in seconds
+   * @return displacement from the target in pixels
+   */
+  float getDisplacement(float displacement, float velocity, float elapsed);
+}
@@ -0,0 +1,107 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+/**
+ * Settles with a damped spring of unit mass, the release velocity carries into the motion.
+ */
+public final class SpringSettleEngine implements SettleEngine {
+
+  public static final float STIFFNESS_HIGH = 10_000f;
+  public static final float STIFFNESS_MEDIUM = 1500f;
+  public static final float STIFFNESS_LOW = 200f;
+  public static final float DAMPING_RATIO_NO_BOUNCY = 1f;
+  public static final float DAMPING_RATIO_LOW_BOUNCY = 0.75f;
+  public static final float DAMPING_RATIO_MEDIUM_BOUNCY = 0.5f;
+
+  /**
+   * Iterations to solve the duration of a critically damped spring
+   */
+  private static final int DURATION_ITERATIONS = 8;
+
+  private final float naturalFrequency;
+  private final float dampingRatio;
+  private final float dampedFrequency;
+
+  public SpringSettleEngine() {
+    this(STIFFNESS_MEDIUM, DAMPING_RATIO_NO_BOUNCY);
+  }
+
+  /**
+   * @param stiffness spring stiffness, must be positive
+   * @param dampingRatio damping ratio, 1 for critically damped, less than 1 bounces
+   */
+  public SpringSettleEngine(float stiffness, float dampingRatio) {
+    if (stiffness <= 0) {
+      throw new IllegalArgumentException("Spring stiffness must be positive.");
+    }
+
+    if (dampingRatio < 0) {
+      throw new IllegalArgumentException("Damping ratio must be non-negative.");
+    }
+
+    this.naturalFrequency = (float) Math.sqrt(stiffness);
+    this.dampingRatio = dampingRatio;
+    this.dampedFrequency = dampingRatio < 1
+        ? naturalFrequency * (float) Math.sqrt(1 - dampingRatio * dampingRatio) : 0;
+  }
+
+  @Override public float getDuration(float displacement, float velocity) {
+    float w0 = naturalFrequency;
+    if (dampingRatio == 0) {
+      // Never rests, stop after a second
+      return 1f;
+    } else if (dampingRatio < 1) {
+      float b = (velocity + dampingRatio * w0 * displacement) / dampedFrequency;
+      double amplitude = Math.sqrt(displacement * displacement + b * b);
+      return decayTime(amplitude, dampingRatio * w0);
+    } else if (dampingRatio == 1) {
+      // The envelope is (|a| + |b| * t) * e^(-w0 * t), solve it by fixed point iteration
+      float a = Math.abs(displacement);
+      float b = Math.abs(velocity + w0 * displacement);
+      float t = 0;
+      for (int i = 0; i < DURATION_ITERATIONS; i++) {
+        t = decayTime(a + b * t, w0);
+      }
+
+      return t;
+    } else {
+      double root = Math.sqrt(dampingRatio * dampingRatio - 1);
+      double r1 = -w0 * (dampingRatio - root);
+      double r2 = -w0 * (dampingRatio + root);
+      double c1 = (velocity - r2 * displacement) / (r1 - r2);
+      double c2 = displacement - c1;
+      // r1 is the slower one
+      return decayTime(Math.abs(c1) + Math.abs(c2), -r1);
+    }
+  }
+
+  @Override public float getDisplacement(float displacement, float velocity, float elapsed) {
+    float w0 = naturalFrequency;
+    if (dampingRatio < 1) {
+      float b = (velocity + dampingRatio * w0 * displacement) / dampedFrequency;
+      double envelope = Math.exp(-dampingRatio * w0 * elapsed);
+      double angle = dampedFrequency * elapsed;
+      return (float) (envelope * (displacement * Math.cos(angle) + b * Math.sin(angle)));
+    } else if (dampingRatio == 1) {
+      float b = velocity + w0 * displacement;
+      return (float) ((displacement + b * elapsed) * Math.exp(-w0 * elapsed));
+    } else {
+      double root = Math.sqrt(dampingRatio * dampingRatio - 1);
+      double r1 = -w0 * (dampingRatio - root);
+      double r2 = -w0 * (dampingRatio + root);
+      double c1 = (velocity - r2 * displacement) / (r1 - r2);
+      double c2 = displacement - c1;
+      return (float) (c1 * Math.exp(r1 * elapsed) + c2 * Math.exp(r2 * elapsed));
+    }
+  }
+
+  /**
+   * Returns the time an exponential envelope takes to fall under {@link #REST_DISPLACEMENT}.
+   */
+  private static float decayTime(double amplitude, double rate) {
+    if (amplitude <= REST_DISPLACEMENT) {
+      return 0;
+    }
+
+    return (float) (Math.log(amplitude / REST_DISPLACEMENT) / rate);
+  }
+}
@@ -0,0 +1,224 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Clamp, hook and release rules of {@link DragPhysics}.
+ */
+public class DragPhysicsTest {
+
+  private static final float VELOCITY_THRESHOLD = 100;
+
+  private DragStateTable states;
+  private int slot;
+
+  @Before public void setUp() {
+    states = new DragStateTable();
+    slot = states.acquire();
+    // Start 100, min 50 and max 200 on both axes
+    states.setDistanceX(slot, new Distance(100, 50, 100));
+    states.setDistanceY(slot, new Distance(100, 50, 100));
+  }
+
+  /*--------------------------------
+   * Clamp
+   *-------------------------------*/
+
+  @Test public void clampHorizontalLeftOnly() {
+    states.setDragFlag(slot, DragPhysics.LEFT);
+    assertEquals(70, DragPhysics.clampHorizontal(states, slot, 100, -30, 1, null));
+    assertEquals(100, DragPhysics.clampHorizontal(states, slot, 100, 30, 1, null));
+    assertEquals(50, DragPhysics.clampHorizontal(states, slot, 60, -30, 1, null));
+  }
+
+  @Test public void clampHorizontalRightOnly() {
+    states.setDragFlag(slot, DragPhysics.RIGHT);
+    assertEquals(130, DragPhysics.clampHorizontal(states, slot, 100, 30, 1, null));
+    assertEquals(100, DragPhysics.clampHorizontal(states, slot, 100, -30, 1, null));
+    assertEquals(200, DragPhysics.clampHorizontal(states, slot, 190, 30, 1, null));
+  }
+
+  @Test public void clampHorizontalIgnoresVerticalFlags() {
+    states.setDragFlag(slot, DragPhysics.TOP | DragPhysics.BOTTOM);
+    assertEquals(100, DragPhysics.clampHorizontal(states, slot, 100, -30, 1, null));
+    assertEquals(100, DragPhysics.clampHorizontal(states, slot, 100, 30, 1, null));
+  }
+
+  @Test public void clampHorizontalWithoutDistance() {
+    states.setDragFlag(slot, DragPhysics.LEFT | DragPhysics.RIGHT);
+    states.clearDistanceX(slot);
+    assertEquals(100, DragPhysics.clampHorizontal(states, slot, 100, -30, 1, null));
+  }
+
+  @Test public void clampHorizontalOutsideOnlyMovesBack() {
+    states.setDragFlag(slot, DragPhysics.LEFT | DragPhysics.RIGHT);
+    assertEquals(40, DragPhysics.clampHorizontal(states, slot, 40, -5, 1, null));
+    assertEquals(45, DragPhysics.clampHorizontal(states, slot, 40, 5, 1, null));
+  }
+
+  @Test public void clampHorizontalSpeedFactor() {
+    states.setDragFlag(slot, DragPhysics.LEFT);
+    assertEquals(85, DragPhysics.clampHorizontal(states, slot, 100, -30, 0.5f, null));
+  }
+
+  @Test public void clampHorizontalCarriesSubPixels() {
+    states.setDragFlag(slot, DragPhysics.RIGHT);
+    int left = 100;
+    for (int i = 0; i < 40; i++) {
+      left = DragPhysics.clampHorizontal(states, slot, left, 1, 0.5f, null);
+    }
+
+    assertEquals(120, left);
+  }
+
+  @Test public void clampHorizontalDropsCarryWhenBlocked() {
+    states.setDragFlag(slot, DragPhysics.RIGHT);
+    DragPhysics.clampHorizontal(states, slot, 100, 1, 0.5f, null);
+    assertEquals(0.5f, states.getCarryX(slot), 0);
+    DragPhysics.clampHorizontal(states, slot, 100, -1, 0.5f, null);
+    assertEquals(0, states.getCarryX(slot), 0);
+  }
+
+  @Test public void clampVerticalTopOnly() {
+    states.setDragFlag(slot, DragPhysics.TOP);
+    assertEquals(70, DragPhysics.clampVertical(states, slot, 100, -30, 1, null));
+    assertEquals(100, DragPhysics.clampVertical(states, slot, 100, 30, 1, null));
+    assertEquals(50, DragPhysics.clampVertical(states, slot, 60, -30, 1, null));
+  }
+
+  @Test public void clampVerticalBottomOnly() {
+    states.setDragFlag(slot, DragPhysics.BOTTOM);
+    assertEquals(130, DragPhysics.clampVertical(states, slot, 100, 30, 1, null));
+    assertEquals(100, DragPhysics.clampVertical(states, slot, 100, -30, 1, null));
+    assertEquals(200, DragPhysics.clampVertical(states, slot, 190, 30, 1, null));
+  }
+
+  @Test public void clampVerticalIgnoresHorizontalFlags() {
+    states.setDragFlag(slot, DragPhysics.LEFT | DragPhysics.RIGHT);
+    assertEquals(100, DragPhysics.clampVertical(states, slot, 100, -30, 1, null));
+    assertEquals(100, DragPhysics.clampVertical(states, slot, 100, 30, 1, null));
+  }
+
+  /*--------------------------------
+   * Hook
+   *-------------------------------*/
+
+  @Test public void hookDeltaFollowsFlag() {
+    states.setDragFlag(slot, DragPhysics.LEFT | DragPhysics.BOTTOM);
+    assertEquals(-15, DragPhysics.hookDeltaX(states, slot, -30, 0.5f), 0);
+    assertEquals(0, DragPhysics.hookDeltaX(states, slot, 30, 0.5f), 0);
+    assertEquals(15, DragPhysics.hookDeltaY(states, slot, 30, 0.5f), 0);
+    assertEquals(0, DragPhysics.hookDeltaY(states, slot, -30, 0.5f), 0);
+    // The part below a pixel is kept
+    assertEquals(-0.5f, DragPhysics.hookDeltaX(states, slot, -1, 0.5f), 0);
+  }
+
+  @Test public void hookOffsetKeepsInsideBounds() {
+    assertEquals(-50, DragPhysics.hookOffsetX(states, slot, 100, -80, 1));
+    assertEquals(100, DragPhysics.hookOffsetX(states, slot, 100, 150, 1));
+    assertEquals(-50, DragPhysics.hookOffsetY(states, slot, 100, -80, 1));
+    assertEquals(100, DragPhysics.hookOffsetY(states, slot, 100, 150, 1));
+  }
+
+  @Test public void hookOffsetAppliesRatio() {
+    assertEquals(-40, DragPhysics.hookOffsetX(states, slot, 100, -80, 0.5f));
+    assertEquals(-30, DragPhysics.hookOffsetX(states, slot, 100, 30, -1));
+    assertEquals(60, DragPhysics.hookOffsetY(states, slot, 100, 30, 2));
+  }
+
+  @Test public void hookOffsetCarriesSubPixels() {
+    // A back and forth drag of 1px at ratio 0.5 doesn't drift
+    int left = 100;
+    for (int i = 0; i < 20; i++) {
+      left += DragPhysics.hookOffsetX(states, slot, left, 1, 0.5f);
+      left += DragPhysics.hookOffsetX(states, slot, left, -1, 0.5f);
+    }
+
+    assertEquals(100, left);
+    // A slow drag moves half as far both ways
+    for (int i = 0; i < 20; i++) {
+      left += DragPhysics.hookOffsetX(states, slot, left, 1, 0.5f);
+    }
+
+    assertEquals(110, left);
+    for (int i = 0; i < 20; i++) {
+      left += DragPhysics.hookOffsetX(states, slot, left, -1, 0.5f);
+    }
+
+    assertEquals(100, left);
+  }
+
+  @Test public void slowDragMovesHooks() {
+    // 1px events at speed factor 0.5 move a hook with ratio 1 every other event
+    states.setDragFlag(slot, DragPhysics.RIGHT);
+    int hook = states.acquire();
+    states.setDistanceX(hook, new Distance(100, 50, 100));
+    int left = 100;
+    for (int i = 0; i < 20; i++) {
+      float delta = DragPhysics.hookDeltaX(states, slot, 1, 0.5f);
+      left += DragPhysics.hookOffsetX(states, hook, left, delta, 1);
+    }
+
+    assertEquals(110, left);
+  }
+
+  @Test public void hookOffsetOutsideOnlyMovesBack() {
+    assertEquals(0, DragPhysics.hookOffsetX(states, slot, 220, 10, 1));
+    assertEquals(-10, DragPhysics.hookOffsetX(states, slot, 220, -10, 1));
+    assertEquals(0, DragPhysics.hookOffsetX(states, slot, 30, -10, 1));
+  }
+
+  @Test public void hookOffsetWithoutDistanceOrMove() {
+    assertEquals(0, DragPhysics.hookOffsetX(states, slot, 100, 0, 1));
+    states.clearDistanceX(slot);
+    assertEquals(0, DragPhysics.hookOffsetX(states, slot, 100, -30, 1));
+  }
+
+  /*--------------------------------
+   * Release
+   *-------------------------------*/
+
+  @Test public void releaseSnapsToNearestAnchor() {
+    // Anchors 50, 100 and 200
+    states.setDistanceX(slot, new Distance(100, 50, 100, 0));
+    assertEquals(50, DragPhysics.releaseX(states, slot, 70, 0, VELOCITY_THRESHOLD));
+    assertEquals(100, DragPhysics.releaseX(states, slot, 80, 0, VELOCITY_THRESHOLD));
+    assertEquals(200, DragPhysics.releaseX(states, slot, 160, 0, VELOCITY_THRESHOLD));
+  }
+
+  @Test public void releaseTieGoesToLowerAnchor() {
+    states.setDistanceX(slot, new Distance(100, 50, 100, 0));
+    assertEquals(50, DragPhysics.releaseX(states, slot, 75, 0, VELOCITY_THRESHOLD));
+  }
+
+  @Test public void releaseProjectsVelocity() {
+    states.setDistanceX(slot, new Distance(100, 50, 100, 0));
+    // 70 + 400 * 0.1 = 110, below the threshold it's only the projection
+    assertEquals(100, DragPhysics.releaseX(states, slot, 70, 400, 1000));
+    // 160 - 500 * 0.1 = 110
+    assertEquals(100, DragPhysics.releaseX(states, slot, 160, -500, 1000));
+  }
+
+  @Test public void releaseFlingGoesToNextAnchor() {
+    states.setDistanceX(slot, new Distance(100, 50, 100, 0));
+    // Projected to 116, nearest is 100, but the fling passes it
+    assertEquals(200, DragPhysics.releaseX(states, slot, 101, 150, VELOCITY_THRESHOLD));
+    // Projected to 184, nearest is 200, but the fling goes back to 100
+    assertEquals(100, DragPhysics.releaseX(states, slot, 199, -150, VELOCITY_THRESHOLD));
+  }
+
+  @Test public void releaseOutsideSnapsToBound() {
+    states.setDistanceY(slot, new Distance(100, 50, 100, 0));
+    assertEquals(200, DragPhysics.releaseY(states, slot, 260, 0, VELOCITY_THRESHOLD));
+    assertEquals(50, DragPhysics.releaseY(states, slot, 10, 0, VELOCITY_THRESHOLD));
+  }
+
+  @Test public void releaseWithoutDistance() {
+    states.clearDistanceX(slot);
+    assertEquals(70, DragPhysics.releaseX(states, slot, 70, 5000, VELOCITY_THRESHOLD));
+    assertEquals(70, DragPhysics.snap(states, 0, 0, 70, 5000, VELOCITY_THRESHOLD));
+  }
+}
@@ -0,0 +1,138 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Slots, anchors and hooks of {@link DragStateTable}.
+ */
+public class DragStateTableTest {
+
+  private DragStateTable states;
+
+  @Before public void setUp() {
+    states = new DragStateTable();
+  }
+
+  @Test public void releasedSlotIsReused() {
+    assertEquals(0, states.acquire());
+    assertEquals(1, states.acquire());
+    assertEquals(2, states.acquire());
+
+    states.release(1);
+    assertFalse(states.isInUse(1));
+    assertEquals(3, states.size());
+    assertEquals(1, states.acquire());
+    assertTrue(states.isInUse(1));
+    assertEquals(3, states.acquire());
+  }
+
+  @Test public void acquiredSlotIsCleared() {
+    int slot = states.acquire();
+    states.setDragFlag(slot, DragPhysics.LEFT);
+    states.setEdgeFlag(slot, 1);
+    states.setDistanceX(slot, new Distance(100, 50, 100));
+    states.setCarryX(slot, 0.5f);
+    states.release(slot);
+
+    assertEquals(slot, states.acquire());
+    assertEquals(0, states.getDragFlag(slot));
+    assertEquals(0, states.getEdgeFlag(slot));
+    assertFalse(states.hasDistanceX(slot));
+    assertEquals(0, states.getCarryX(slot), 0);
+  }
+
+  @Test public void growsPastInitialCapacity() {
+    for (int i = 0; i < 20; i++) {
+      int slot = states.acquire();
+      states.setDistanceX(slot, new Distance(i, 1, 1));
+    }
+
+    for (int slot = 0; slot < 20; slot++) {
+      assertTrue(states.isInUse(slot));
+      assertEquals(slot, states.getStartX(slot));
+    }
+  }
+
+  @Test public void anchorsSurviveCompaction() {
+    for (int i = 0; i < 3; i++) {
+      states.acquire();
+    }
+
+    Distance[] last = new Distance[3];
+    for (int i = 0; i < 30; i++) {
+      int slot = i % 3;
+      int[] offsets = new int[(i * 7) % 5];
+      for (int j = 0; j < offsets.length; j++) {
+        offsets[j] = (j + 1) * 10 - 25;
+      }
+
+      last[slot] = new Distance(100 * slot, 50, 50, offsets);
+      states.setDistanceX(slot, last[slot]);
+      states.setDistanceY(slot, last[slot]);
+    }
+
+    for (int slot = 0; slot < 3; slot++) {
+      assertTrue(states.isDistanceX(slot, last[slot]));
+      assertTrue(states.isDistanceY(slot, last[slot]));
+      assertAnchors(last[slot], states.getAnchorStartX(slot), states.getAnchorCountX(slot));
+      assertAnchors(last[slot], states.getAnchorStartY(slot), states.getAnchorCountY(slot));
+    }
+  }
+
+  @Test public void offsetMovesDistanceAndAnchors() {
+    int slot = states.acquire();
+    states.setDistanceX(slot, new Distance(100, 50, 100, 20));
+    states.offsetDistanceX(slot, 30);
+
+    assertTrue(states.isDistanceX(slot, new Distance(130, 50, 100, 20)));
+    assertEquals(80, states.getMinX(slot));
+    assertEquals(230, states.getMaxX(slot));
+    assertEquals(150, states.getAnchor(states.getAnchorStartX(slot) + 1));
+  }
+
+  @Test public void releaseRemovesHooksToSlot() {
+    for (int i = 0; i < 3; i++) {
+      states.acquire();
+    }
+
+    states.setHooks(0, new int[] { 1, 2 }, new float[] { 0.5f, 2 }, new float[] { 1, 1 }, 2);
+    int version = states.getHookVersion();
+    states.release(1);
+
+    assertTrue(states.getHookVersion() != version);
+    assertEquals(1, states.getHookCount(0));
+    int start = states.getHookStart(0);
+    assertEquals(2, states.getHook(start));
+    assertEquals(2f, states.getHookRatioX(start), 0);
+  }
+
+  @Test public void hooksSurviveCompaction() {
+    for (int i = 0; i < 4; i++) {
+      states.acquire();
+    }
+
+    for (int i = 1; i <= 6; i++) {
+      states.setHooks(0, new int[] { 1, 2, 3 }, i % 3 + 1);
+      states.setHooks(1, new int[] { 2, 3 }, new float[] { i, i }, null, i % 2 + 1);
+    }
+
+    assertEquals(1, states.getHookCount(0));
+    assertEquals(1, states.getHook(states.getHookStart(0)));
+    assertEquals(1, states.getHookCount(1));
+    assertEquals(2, states.getHook(states.getHookStart(1)));
+    assertEquals(6f, states.getHookRatioX(states.getHookStart(1)), 0);
+    assertEquals(1f, states.getHookRatioY(states.getHookStart(1)), 0);
+  }
+
+  private void assertAnchors(Distance distance, int start, int count) {
+    assertEquals(distance.getAnchorCount(), count);
+    for (int i = 0; i < count; i++) {
+      assertEquals(distance.getAnchor(i), states.getAnchor(start + i));
+    }
+  }
+}
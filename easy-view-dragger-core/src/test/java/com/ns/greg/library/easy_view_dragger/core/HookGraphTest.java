@@ -0,0 +1,86 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Propagation order of {@link HookGraph}.
+ */
+public class HookGraphTest {
+
+  private DragStateTable states;
+  private HookGraph graph;
+
+  @Before public void setUp() {
+    states = new DragStateTable();
+    for (int i = 0; i < 4; i++) {
+      states.acquire();
+    }
+
+    graph = new HookGraph();
+  }
+
+  @Test public void chainFollowsByLevels() {
+    states.setHooks(0, new int[] { 1 }, new float[] { 0.5f }, new float[] { 1 }, 1);
+    states.setHooks(1, new int[] { 2 }, new float[] { 0.5f }, new float[] { 2 }, 1);
+    graph.compile(states);
+
+    int start = graph.getStart(0);
+    assertEquals(2, graph.getCount(0));
+    assertEquals(1, graph.getNode(start));
+    assertEquals(0, graph.getParent(start));
+    assertEquals(2, graph.getNode(start + 1));
+    assertEquals(1, graph.getParent(start + 1));
+    assertEquals(0.5f, graph.getRatioX(start + 1), 0);
+    assertEquals(0.25f, graph.getTotalRatioX(start + 1), 0);
+    assertEquals(2f, graph.getTotalRatioY(start + 1), 0);
+
+    assertEquals(1, graph.getCount(1));
+    assertEquals(2, graph.getNode(graph.getStart(1)));
+    assertEquals(0, graph.getCount(2));
+  }
+
+  @Test public void diamondVisitsEachSlotOnce() {
+    states.setHooks(0, new int[] { 1, 2 }, 2);
+    states.setHooks(1, new int[] { 3 }, 1);
+    states.setHooks(2, new int[] { 3 }, 1);
+    graph.compile(states);
+
+    int start = graph.getStart(0);
+    assertEquals(3, graph.getCount(0));
+    assertEquals(1, graph.getNode(start));
+    assertEquals(2, graph.getNode(start + 1));
+    // After both of its parents, following the first one
+    assertEquals(3, graph.getNode(start + 2));
+    assertEquals(1, graph.getParent(start + 2));
+  }
+
+  @Test(expected = IllegalArgumentException.class) public void cycleIsRejected() {
+    states.setHooks(0, new int[] { 1 }, 1);
+    states.setHooks(1, new int[] { 2 }, 1);
+    states.setHooks(2, new int[] { 0 }, 1);
+    graph.compile(states);
+  }
+
+  @Test public void releasedSlotLeavesGraph() {
+    states.setHooks(0, new int[] { 1 }, 1);
+    states.setHooks(1, new int[] { 2 }, 1);
+    graph.compile(states);
+    assertEquals(2, graph.getCount(0));
+
+    states.release(1);
+    graph.compile(states);
+    assertEquals(0, graph.getCount(0));
+  }
+
+  @Test public void unchangedHooksKeepOrder() {
+    states.setHooks(0, new int[] { 1 }, 1);
+    graph.compile(states);
+    int version = states.getHookVersion();
+    graph.compile(states);
+    assertEquals(version, states.getHookVersion());
+    assertEquals(1, graph.getNode(graph.getStart(0)));
+  }
+}
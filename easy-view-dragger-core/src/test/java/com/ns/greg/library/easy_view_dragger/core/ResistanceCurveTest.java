@@ -0,0 +1,105 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lookup tables of {@link ResistanceCurve} and the drag through them.
+ */
+public class ResistanceCurveTest {
+
+  private static final int WIDTH = 200;
+
+  private DragStateTable states;
+  private int slot;
+
+  @Before public void setUp() {
+    states = new DragStateTable();
+    slot = states.acquire();
+    // Relative to the start, min -50 and max 100
+    states.setDistanceX(slot, new Distance(100, 50, 100));
+  }
+
+  @Test public void linearInsideBounds() {
+    ResistanceCurve curve = new Resistance().curveX(states, slot, WIDTH, null);
+    for (int position = -50; position <= 100; position += 10) {
+      assertEquals(position, curve.toFinger(position), 1e-3f);
+      assertEquals(position, curve.toPosition(position), 1e-3f);
+    }
+  }
+
+  @Test public void rubberBandPastBounds() {
+    ResistanceCurve curve = new Resistance().curveX(states, slot, WIDTH, null);
+    float previous = 100;
+    for (int finger = 110; finger <= 400; finger += 10) {
+      float position = curve.toPosition(finger);
+      assertTrue(position > previous);
+      // Less than the finger and never past the stretch limit
+      assertTrue(position < finger);
+      assertTrue(position <= 100 + WIDTH / 2);
+      previous = position;
+    }
+
+    assertEquals(100 + WIDTH / 2, curve.toPosition(100_000), 0);
+    assertEquals(-50 - WIDTH / 2, curve.toPosition(-100_000), 0);
+  }
+
+  @Test public void roundTripPastBounds() {
+    ResistanceCurve curve = new Resistance().curveX(states, slot, WIDTH, null);
+    for (int position = 101; position < 100 + WIDTH / 2; position += 7) {
+      assertEquals(position, curve.toPosition(curve.toFinger(position)), 0.05f);
+    }
+  }
+
+  @Test public void noRubberBandStopsAtBounds() {
+    ResistanceCurve curve = new Resistance(0, 0, 0).curveX(states, slot, WIDTH, null);
+    assertEquals(100, curve.toPosition(curve.toFinger(100) + 50), 0);
+    assertEquals(-50, curve.toPosition(curve.toFinger(-50) - 50), 0);
+  }
+
+  @Test public void anchorResistanceSlowsNearAnchor() {
+    states.setDistanceX(slot, new Distance(100, 50, 100, 0));
+    ResistanceCurve curve = new Resistance(0.55f, 0.5f, 20).curveX(states, slot, WIDTH, null);
+    // Near the anchor at 0 the finger moves further than the child
+    assertTrue(curve.toFinger(10) - curve.toFinger(0) > 10);
+    // Out of the range the gain is 1 again
+    assertEquals(10, curve.toFinger(60) - curve.toFinger(50), 1e-3f);
+  }
+
+  @Test public void curveIsReused() {
+    Resistance resistance = new Resistance();
+    ResistanceCurve curve = resistance.curveX(states, slot, WIDTH, null);
+    assertSame(curve, resistance.curveX(states, slot, WIDTH, curve));
+
+    // The curve of another child is not reused
+    int other = states.acquire();
+    states.setDistanceX(other, new Distance(100, 50, 100));
+    assertNotSame(curve, resistance.curveX(states, other, WIDTH, null));
+
+    assertNotSame(curve, resistance.curveX(states, slot, WIDTH + 1, curve));
+  }
+
+  @Test public void dragCarriesSubPixelsThroughCurve() {
+    states.setDragFlag(slot, DragPhysics.RIGHT);
+    ResistanceCurve curve = new Resistance().curveX(states, slot, WIDTH, null);
+    int left = 100;
+    for (int i = 0; i < 40; i++) {
+      left = DragPhysics.clampHorizontal(states, slot, left, 1, 0.5f, curve);
+    }
+
+    assertEquals(120, left);
+  }
+
+  @Test public void dragPastBoundsStretchesLess() {
+    states.setDragFlag(slot, DragPhysics.RIGHT);
+    ResistanceCurve curve = new Resistance().curveX(states, slot, WIDTH, null);
+    int left = DragPhysics.clampHorizontal(states, slot, 200, 50, 1, curve);
+    assertTrue(left > 200);
+    assertTrue(left < 250);
+  }
+}
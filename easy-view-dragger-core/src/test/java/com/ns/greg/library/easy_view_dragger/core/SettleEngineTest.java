@@ -0,0 +1,99 @@
+package com.ns.greg.library.easy_view_dragger.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * End state and velocity of the {@link SettleEngine}s.
+ */
+public class SettleEngineTest {
+
+  /**
+   * Step of the numeric derivative in seconds
+   */
+  private static final float STEP = 1e-4f;
+
+  @Test public void springRestsAtTarget() {
+    assertRests(new SpringSettleEngine());
+    assertRests(new SpringSettleEngine(SpringSettleEngine.STIFFNESS_LOW,
+        SpringSettleEngine.DAMPING_RATIO_MEDIUM_BOUNCY));
+    assertRests(new SpringSettleEngine(SpringSettleEngine.STIFFNESS_HIGH, 2f));
+  }
+
+  @Test public void springCarriesReleaseVelocity() {
+    assertInitialVelocity(new SpringSettleEngine(), 100, 1000);
+    assertInitialVelocity(new SpringSettleEngine(), 100, -3000);
+    assertInitialVelocity(new SpringSettleEngine(SpringSettleEngine.STIFFNESS_LOW,
+        SpringSettleEngine.DAMPING_RATIO_LOW_BOUNCY), -80, 500);
+    assertInitialVelocity(new SpringSettleEngine(SpringSettleEngine.STIFFNESS_MEDIUM, 2f), 60,
+        -800);
+  }
+
+  @Test public void criticalSpringDoesNotOvershoot() {
+    SettleEngine engine = new SpringSettleEngine();
+    float duration = engine.getDuration(100, 0);
+    for (float t = 0; t <= duration; t += 0.005f) {
+      assertTrue(engine.getDisplacement(100, 0, t) >= 0);
+    }
+  }
+
+  @Test public void decayRestsAtTarget() {
+    assertRests(new DecaySettleEngine());
+  }
+
+  @Test public void decayKeepsFlingSpeed() {
+    // Towards the target and faster than friction * displacement
+    assertInitialVelocity(new DecaySettleEngine(), 100, -3000);
+    assertInitialVelocity(new DecaySettleEngine(), -100, 3000);
+  }
+
+  @Test public void decayIgnoresVelocityAwayFromTarget() {
+    SettleEngine engine = new DecaySettleEngine();
+    assertEquals(engine.getDuration(100, 0), engine.getDuration(100, 3000), 0);
+    assertInitialVelocity(engine, 100, -DecaySettleEngine.FRICTION_DEFAULT * 100);
+  }
+
+  @Test public void durationRestsAtTarget() {
+    SettleEngine engine = new DurationSettleEngine();
+    assertRests(engine);
+    assertEquals(0, engine.getDisplacement(100, 0, engine.getDuration(100, 0)), 0);
+  }
+
+  @Test public void durationFollowsVelocity() {
+    SettleEngine engine = new DurationSettleEngine();
+    // 256ms stretched by 100 / 800
+    assertEquals(0.288f, engine.getDuration(100, 0), 1e-4f);
+    // Four times the time the velocity takes
+    assertEquals(0.4f, engine.getDuration(100, -1000), 1e-4f);
+    assertEquals(DurationSettleEngine.MAX_DURATION / 1000f, engine.getDuration(100, -10),
+        1e-4f);
+  }
+
+  @Test public void arrivedSettleTakesNoTime() {
+    assertEquals(0, new SpringSettleEngine().getDuration(0.2f, 0), 0);
+    assertEquals(0, new DecaySettleEngine().getDuration(0.2f, 0), 0);
+    assertEquals(0, new DurationSettleEngine().getDuration(0.2f, 0), 0);
+  }
+
+  private static void assertRests(SettleEngine engine) {
+    float[] displacements = { 300, -300, 40 };
+    float[] velocities = { 0, -2000, 2000 };
+    for (float displacement : displacements) {
+      for (float velocity : velocities) {
+        assertEquals(displacement, engine.getDisplacement(displacement, velocity, 0), 1e-3f);
+        float duration = engine.getDuration(displacement, velocity);
+        assertTrue(duration > 0);
+        float rest = engine.getDisplacement(displacement, velocity, duration);
+        assertTrue(Math.abs(rest) <= SettleEngine.REST_DISPLACEMENT + 1e-3f);
+      }
+    }
+  }
+
+  private static void assertInitialVelocity(SettleEngine engine, float displacement,
+      float velocity) {
+    float moved = engine.getDisplacement(displacement, velocity, STEP) - displacement;
+    assertEquals(velocity, moved / STEP, Math.abs(velocity) * 0.02f);
+  }
+}
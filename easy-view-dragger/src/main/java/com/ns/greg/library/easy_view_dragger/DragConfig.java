@@ -0,0 +1,470 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+import com.ns.greg.library.easy_view_dragger.core.Resistance;
+import com.ns.greg.library.easy_view_dragger.core.SettleEngine;
+import java.util.Arrays;
+
+/**
+ * Options collected by {@link ViewDragLayout.Builder}, they are applied to the layout in one
+ * pass. The options keep the call order of the builder, an option for all children overrides the
+ * specific ones set before it.
+ */
+final class DragConfig {
+
+  /*--------------------------------
+   * Option bits
+   *-------------------------------*/
+
+  static final int LAYOUT_TYPE = 1;
+  static final int CHAIN = 1 << 1;
+  static final int PULL = 1 << 2;
+  static final int SPEED_FACTOR = 1 << 3;
+  static final int PRESS_TIME = 1 << 4;
+  static final int EDGE_FLAG = 1 << 5;
+  static final int DRAG_FLAG = 1 << 6;
+  static final int DRAG_X = 1 << 7;
+  static final int DRAG_Y = 1 << 8;
+  static final int HOOKS = 1 << 9;
+  static final int LAYER_PROMOTION = 1 << 10;
+  static final int SETTLE_ENGINE = 1 << 11;
+  static final int START_MODE = 1 << 12;
+  static final int INPUT_RESAMPLING = 1 << 13;
+  static final int METRICS = 1 << 14;
+  static final int RESISTANCE = 1 << 15;
+
+  /**
+   * Ratio of the hooks added without one, it follows the drag flag of the target, see
+   * {@link ViewDragLayout.Builder#hookWith(int, int...)}
+   */
+  static final float FLAG_RATIO = Float.NaN;
+
+  /**
+   * True if the options are shared by layouts through a {@link DragSpec}, they must be copied
+   * before a change
+   */
+  boolean shared;
+
+  /**
+   * Options of the layout
+   */
+  int options;
+  int layoutType;
+  boolean chainEnable;
+  boolean pullEnable;
+  float speedFactor;
+  long pressTime;
+  int startMode;
+  int edgeFlag;
+  boolean layerPromotionEnable;
+  SettleEngine settleEngine;
+  boolean inputResamplingEnable;
+  boolean metricsEnable;
+
+  /**
+   * Options of all children
+   */
+  int dragFlag;
+  int leftX;
+  int rightX;
+  int[] anchorsX;
+  int topY;
+  int bottomY;
+  int[] anchorsY;
+  Resistance resistance;
+
+  /**
+   * Options of the specific children, keyed by child id
+   */
+  final SparseArray<Child> children = new SparseArray<>();
+
+  static final class Child {
+
+    int options;
+    int dragFlag;
+    int leftX;
+    int rightX;
+    int[] anchorsX;
+    int topY;
+    int bottomY;
+    int[] anchorsY;
+    int edgeFlag;
+    Resistance resistance;
+    int[] hookIds;
+    /**
+     * Ratios of the hooks by index, null or {@link #FLAG_RATIO} to follow the drag flag
+     */
+    float[] hookRatiosX;
+    float[] hookRatiosY;
+  }
+
+  /**
+   * Resolves the options of the layout from its XML attributes.
+   *
+   * @param context the context
+   * @param attrs attributes of the layout
+   * @param defStyle default style attribute
+   * @return the options, with no option if none is set
+   */
+  static DragConfig fromAttributes(Context context, AttributeSet attrs, int defStyle) {
+    DragConfig config = new DragConfig();
+    if (attrs == null) {
+      return config;
+    }
+
+    TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.ViewDragLayout, defStyle, 0);
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragLayoutType)) {
+      config.options |= LAYOUT_TYPE;
+      config.layoutType = a.getInt(R.styleable.ViewDragLayout_vdl_dragLayoutType, 0);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragDirection)) {
+      config.setDragFlag(a.getInt(R.styleable.ViewDragLayout_vdl_dragDirection, 0));
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragLeft)
+        || a.hasValue(R.styleable.ViewDragLayout_vdl_dragRight)) {
+      config.setDragX(a.getDimensionPixelSize(R.styleable.ViewDragLayout_vdl_dragLeft, 0),
+          a.getDimensionPixelSize(R.styleable.ViewDragLayout_vdl_dragRight, 0), null);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragTop)
+        || a.hasValue(R.styleable.ViewDragLayout_vdl_dragBottom)) {
+      config.setDragY(a.getDimensionPixelSize(R.styleable.ViewDragLayout_vdl_dragTop, 0),
+          a.getDimensionPixelSize(R.styleable.ViewDragLayout_vdl_dragBottom, 0), null);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragEdge)) {
+      config.options |= EDGE_FLAG;
+      config.edgeFlag = a.getInt(R.styleable.ViewDragLayout_vdl_dragEdge, 0);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragChain)) {
+      config.options |= CHAIN;
+      config.chainEnable = a.getBoolean(R.styleable.ViewDragLayout_vdl_dragChain, false);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragPull)) {
+      config.options |= PULL;
+      config.pullEnable = a.getBoolean(R.styleable.ViewDragLayout_vdl_dragPull, false);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragSpeedFactor)) {
+      config.options |= SPEED_FACTOR;
+      config.speedFactor = a.getFloat(R.styleable.ViewDragLayout_vdl_dragSpeedFactor, 1f);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragPressTime)) {
+      config.options |= PRESS_TIME;
+      config.pressTime = a.getInt(R.styleable.ViewDragLayout_vdl_dragPressTime, 0);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragStartMode)) {
+      config.options |= START_MODE;
+      config.startMode = a.getInt(R.styleable.ViewDragLayout_vdl_dragStartMode, 0);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragPromoteLayers)) {
+      config.options |= LAYER_PROMOTION;
+      config.layerPromotionEnable =
+          a.getBoolean(R.styleable.ViewDragLayout_vdl_dragPromoteLayers, false);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_vdl_dragResampleInput)) {
+      config.options |= INPUT_RESAMPLING;
+      config.inputResamplingEnable =
+          a.getBoolean(R.styleable.ViewDragLayout_vdl_dragResampleInput, false);
+    }
+
+    a.recycle();
+    return config;
+  }
+
+  /**
+   * Resolves the options of a child from its XML layout attributes.
+   *
+   * @param context the context
+   * @param attrs attributes of the child
+   * @return the options, null if none is set
+   */
+  static Child childFromAttributes(Context context, AttributeSet attrs) {
+    if (attrs == null) {
+      return null;
+    }
+
+    Child child = new Child();
+    TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.ViewDragLayout_Layout);
+    if (a.hasValue(R.styleable.ViewDragLayout_Layout_layout_vdl_dragDirection)) {
+      child.options |= DRAG_FLAG;
+      child.dragFlag = a.getInt(R.styleable.ViewDragLayout_Layout_layout_vdl_dragDirection, 0);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_Layout_layout_vdl_dragLeft)
+        || a.hasValue(R.styleable.ViewDragLayout_Layout_layout_vdl_dragRight)) {
+      child.options |= DRAG_X;
+      child.leftX =
+          a.getDimensionPixelSize(R.styleable.ViewDragLayout_Layout_layout_vdl_dragLeft, 0);
+      child.rightX =
+          a.getDimensionPixelSize(R.styleable.ViewDragLayout_Layout_layout_vdl_dragRight, 0);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_Layout_layout_vdl_dragTop)
+        || a.hasValue(R.styleable.ViewDragLayout_Layout_layout_vdl_dragBottom)) {
+      child.options |= DRAG_Y;
+      child.topY =
+          a.getDimensionPixelSize(R.styleable.ViewDragLayout_Layout_layout_vdl_dragTop, 0);
+      child.bottomY =
+          a.getDimensionPixelSize(R.styleable.ViewDragLayout_Layout_layout_vdl_dragBottom, 0);
+    }
+
+    if (a.hasValue(R.styleable.ViewDragLayout_Layout_layout_vdl_dragEdge)) {
+      child.options |= EDGE_FLAG;
+      child.edgeFlag = a.getInt(R.styleable.ViewDragLayout_Layout_layout_vdl_dragEdge, 0);
+    }
+
+    a.recycle();
+    return child.options != 0 ? child : null;
+  }
+
+  boolean has(int option) {
+    return (options & option) != 0;
+  }
+
+  Child child(int childId) {
+    Child child = children.get(childId);
+    if (child == null) {
+      child = new Child();
+      children.put(childId, child);
+    }
+
+    return child;
+  }
+
+  void setDragFlag(int dragFlag) {
+    clearChildren(DRAG_FLAG);
+    options |= DRAG_FLAG;
+    this.dragFlag = dragFlag;
+  }
+
+  void setDragX(int leftX, int rightX, int[] anchorsX) {
+    clearChildren(DRAG_X);
+    options |= DRAG_X;
+    this.leftX = leftX;
+    this.rightX = rightX;
+    this.anchorsX = anchorsX;
+  }
+
+  void setDragY(int topY, int bottomY, int[] anchorsY) {
+    clearChildren(DRAG_Y);
+    options |= DRAG_Y;
+    this.topY = topY;
+    this.bottomY = bottomY;
+    this.anchorsY = anchorsY;
+  }
+
+  void setSpecificDragFlag(int childId, int dragFlag) {
+    Child child = child(childId);
+    child.options |= DRAG_FLAG;
+    child.dragFlag = dragFlag;
+  }
+
+  void setResistance(Resistance resistance) {
+    clearChildren(RESISTANCE);
+    options |= RESISTANCE;
+    this.resistance = resistance;
+  }
+
+  void setSpecificResistance(int childId, Resistance resistance) {
+    Child child = child(childId);
+    child.options |= RESISTANCE;
+    child.resistance = resistance;
+  }
+
+  void setSpecificDragX(int childId, int leftX, int rightX, int[] anchorsX) {
+    Child child = child(childId);
+    child.options |= DRAG_X;
+    child.leftX = leftX;
+    child.rightX = rightX;
+    child.anchorsX = anchorsX;
+  }
+
+  void setSpecificDragY(int childId, int topY, int bottomY, int[] anchorsY) {
+    Child child = child(childId);
+    child.options |= DRAG_Y;
+    child.topY = topY;
+    child.bottomY = bottomY;
+    child.anchorsY = anchorsY;
+  }
+
+  void setSpecificEdgeFlag(int childId, int edgeFlag) {
+    Child child = child(childId);
+    child.options |= EDGE_FLAG;
+    child.edgeFlag = edgeFlag;
+    options |= EDGE_FLAG;
+    this.edgeFlag = edgeFlag;
+  }
+
+  void setHooks(int targetId, int[] hookIds) {
+    Child child = child(targetId);
+    child.options |= HOOKS;
+    child.hookIds = hookIds;
+    child.hookRatiosX = null;
+    child.hookRatiosY = null;
+  }
+
+  /**
+   * Adds a hook to the target, it replaces the hook of the same id.
+   */
+  void addHook(int targetId, int hookId, float ratioX, float ratioY) {
+    Child child = child(targetId);
+    int[] hookIds = (child.options & HOOKS) != 0 ? child.hookIds : new int[0];
+    int count = hookIds.length;
+    int index = 0;
+    while (index < count && hookIds[index] != hookId) {
+      index++;
+    }
+
+    float[] ratiosX = ratios(child.hookRatiosX, count, index + 1);
+    float[] ratiosY = ratios(child.hookRatiosY, count, index + 1);
+    if (index == count) {
+      hookIds = Arrays.copyOf(hookIds, count + 1);
+      hookIds[index] = hookId;
+    }
+
+    ratiosX[index] = ratioX;
+    ratiosY[index] = ratioY;
+    child.options |= HOOKS;
+    child.hookIds = hookIds;
+    child.hookRatiosX = ratiosX;
+    child.hookRatiosY = ratiosY;
+  }
+
+  private static float[] ratios(float[] ratios, int count, int length) {
+    float[] copy = new float[Math.max(count, length)];
+    if (ratios != null) {
+      System.arraycopy(ratios, 0, copy, 0, count);
+    } else {
+      Arrays.fill(copy, 0, count, FLAG_RATIO);
+    }
+
+    return copy;
+  }
+
+  /**
+   * The option for all children overrides the specific ones set before it.
+   */
+  private void clearChildren(int option) {
+    int size = children.size();
+    for (int i = 0; i < size; i++) {
+      children.valueAt(i).options &= ~option;
+    }
+  }
+
+  /**
+   * Appends the options of the other config, as if they were set after the options of this one.
+   *
+   * @param other the later config
+   */
+  void merge(DragConfig other) {
+    if (other.has(LAYOUT_TYPE)) {
+      layoutType = other.layoutType;
+    }
+
+    if (other.has(CHAIN)) {
+      chainEnable = other.chainEnable;
+    }
+
+    if (other.has(PULL)) {
+      pullEnable = other.pullEnable;
+    }
+
+    if (other.has(SPEED_FACTOR)) {
+      speedFactor = other.speedFactor;
+    }
+
+    if (other.has(PRESS_TIME)) {
+      pressTime = other.pressTime;
+    }
+
+    if (other.has(START_MODE)) {
+      startMode = other.startMode;
+    }
+
+    if (other.has(EDGE_FLAG)) {
+      edgeFlag = other.edgeFlag;
+    }
+
+    if (other.has(LAYER_PROMOTION)) {
+      layerPromotionEnable = other.layerPromotionEnable;
+    }
+
+    if (other.has(SETTLE_ENGINE)) {
+      settleEngine = other.settleEngine;
+    }
+
+    if (other.has(INPUT_RESAMPLING)) {
+      inputResamplingEnable = other.inputResamplingEnable;
+    }
+
+    if (other.has(METRICS)) {
+      metricsEnable = other.metricsEnable;
+    }
+
+    if (other.has(DRAG_FLAG)) {
+      setDragFlag(other.dragFlag);
+    }
+
+    if (other.has(DRAG_X)) {
+      setDragX(other.leftX, other.rightX, other.anchorsX);
+    }
+
+    if (other.has(DRAG_Y)) {
+      setDragY(other.topY, other.bottomY, other.anchorsY);
+    }
+
+    if (other.has(RESISTANCE)) {
+      setResistance(other.resistance);
+    }
+
+    options |= other.options;
+    int size = other.children.size();
+    for (int i = 0; i < size; i++) {
+      Child from = other.children.valueAt(i);
+      Child to = child(other.children.keyAt(i));
+      if ((from.options & DRAG_FLAG) != 0) {
+        to.dragFlag = from.dragFlag;
+      }
+
+      if ((from.options & DRAG_X) != 0) {
+        to.leftX = from.leftX;
+        to.rightX = from.rightX;
+        to.anchorsX = from.anchorsX;
+      }
+
+      if ((from.options & DRAG_Y) != 0) {
+        to.topY = from.topY;
+        to.bottomY = from.bottomY;
+        to.anchorsY = from.anchorsY;
+      }
+
+      if ((from.options & EDGE_FLAG) != 0) {
+        to.edgeFlag = from.edgeFlag;
+      }
+
+      if ((from.options & RESISTANCE) != 0) {
+        to.resistance = from.resistance;
+      }
+
+      if ((from.options & HOOKS) != 0) {
+        to.hookIds = from.hookIds;
+        to.hookRatiosX = from.hookRatiosX;
+        to.hookRatiosY = from.hookRatiosY;
+      }
+
+      to.options |= from.options;
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import java.util.Arrays;
+
+/**
+ * Counters and fixed bucket histograms of the drag layer, enabled by
+ * {@link ViewDragLayout.Builder#collectMetrics(boolean)}. Recording allocates nothing, read the
+ * values with {@link #snapshot(Snapshot)} on the main thread.
+ */
+public final class DragMetrics {
+
+  /**
+   * Upper bounds in nanoseconds of the event time buckets, the last bucket takes the rest
+   */
+  private static final long[] EVENT_TIME_BOUNDS = {
+      25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000, 2_000_000, 4_000_000, 8_000_000
+  };
+
+  /**
+   * Upper bounds in frames of the settle buckets, the last bucket takes the rest
+   */
+  private static final long[] SETTLE_FRAME_BOUNDS = { 4, 8, 16, 32, 64 };
+
+  public static final int EVENT_TIME_BUCKET_COUNT = EVENT_TIME_BOUNDS.length + 1;
+  public static final int SETTLE_FRAME_BUCKET_COUNT = SETTLE_FRAME_BOUNDS.length + 1;
+
+  private long captures;
+  private long moveEvents;
+  private long clampHits;
+  private long settlesStarted;
+  private long settlesCompleted;
+  private long swallowedExceptions;
+  private final long[] eventTimes = new long[EVENT_TIME_BUCKET_COUNT];
+  private final long[] settleFrames = new long[SETTLE_FRAME_BUCKET_COUNT];
+
+  DragMetrics() {
+  }
+
+  /*--------------------------------
+   * Recording
+   *-------------------------------*/
+
+  void recordCapture() {
+    captures++;
+  }
+
+  void recordMoveEvent() {
+    moveEvents++;
+  }
+
+  void recordClampHit() {
+    clampHits++;
+  }
+
+  void recordSettleStarted() {
+    settlesStarted++;
+  }
+
+  void recordSettleCompleted(int frames) {
+    settlesCompleted++;
+    settleFrames[bucketOf(SETTLE_FRAME_BOUNDS, frames)]++;
+  }
+
+  void recordSwallowedException() {
+    swallowedExceptions++;
+  }
+
+  void recordEventTime(long nanos) {
+    eventTimes[bucketOf(EVENT_TIME_BOUNDS, nanos)]++;
+  }
+
+  private static int bucketOf(long[] bounds, long value) {
+    int bucket = 0;
+    while (bucket < bounds.length && value > bounds[bucket]) {
+      bucket++;
+    }
+
+    return bucket;
+  }
+
+  /*--------------------------------
+   * Reading
+   *-------------------------------*/
+
+  /**
+   * Copies the current values to the snapshot.
+   *
+   * @param out snapshot to reuse, null creates one
+   * @return the snapshot
+   */
+  public Snapshot snapshot(Snapshot out) {
+    Snapshot snapshot = out != null ? out : new Snapshot();
+    snapshot.captures = captures;
+    snapshot.moveEvents = moveEvents;
+    snapshot.clampHits = clampHits;
+    snapshot.settlesStarted = settlesStarted;
+    snapshot.settlesCompleted = settlesCompleted;
+    snapshot.swallowedExceptions = swallowedExceptions;
+    System.arraycopy(eventTimes, 0, snapshot.eventTimes, 0, EVENT_TIME_BUCKET_COUNT);
+    System.arraycopy(settleFrames, 0, snapshot.settleFrames, 0, SETTLE_FRAME_BUCKET_COUNT);
+    return snapshot;
+  }
+
+  /**
+   * Resets all the values to 0.
+   */
+  public void reset() {
+    captures = 0;
+    moveEvents = 0;
+    clampHits = 0;
+    settlesStarted = 0;
+    settlesCompleted = 0;
+    swallowedExceptions = 0;
+    Arrays.fill(eventTimes, 0);
+    Arrays.fill(settleFrames, 0);
+  }
+
+  /**
+   * Returns the upper bound in nanoseconds of the event time bucket, {@link Long#MAX_VALUE} for
+   * the last one.
+   */
+  public static long getEventTimeBound(int bucket) {
+    return bucket < EVENT_TIME_BOUNDS.length ? EVENT_TIME_BOUNDS[bucket] : Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns the upper bound in frames of the settle bucket, {@link Integer#MAX_VALUE} for the
+   * last one.
+   */
+  public static int getSettleFrameBound(int bucket) {
+    return bucket < SETTLE_FRAME_BOUNDS.length ? (int) SETTLE_FRAME_BOUNDS[bucket]
+        : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Values of the metrics at a point in time
+   */
+  public static final class Snapshot {
+
+    private long captures;
+    private long moveEvents;
+    private long clampHits;
+    private long settlesStarted;
+    private long settlesCompleted;
+    private long swallowedExceptions;
+    private final long[] eventTimes = new long[EVENT_TIME_BUCKET_COUNT];
+    private final long[] settleFrames = new long[SETTLE_FRAME_BUCKET_COUNT];
+
+    /**
+     * Returns the count of the captured children.
+     */
+    public long getCaptures() {
+      return captures;
+    }
+
+    /**
+     * Returns the count of the moves processed by the drag.
+     */
+    public long getMoveEvents() {
+      return moveEvents;
+    }
+
+    /**
+     * Returns the count of the drags stopped by a bound of the distance.
+     */
+    public long getClampHits() {
+      return clampHits;
+    }
+
+    public long getSettlesStarted() {
+      return settlesStarted;
+    }
+
+    /**
+     * Returns the count of the settles which arrived, the cancelled ones are not counted.
+     */
+    public long getSettlesCompleted() {
+      return settlesCompleted;
+    }
+
+    /**
+     * Returns the count of the exceptions swallowed while the drag processes a touch event.
+     */
+    public long getSwallowedExceptions() {
+      return swallowedExceptions;
+    }
+
+    /**
+     * Returns the count of the touch events processed in the time of the bucket.
+     *
+     * @param bucket index below {@link #EVENT_TIME_BUCKET_COUNT}, see
+     * {@link #getEventTimeBound(int)}
+     */
+    public long getEventTimeCount(int bucket) {
+      return eventTimes[bucket];
+    }
+
+    /**
+     * Returns the count of the settles which took the frames of the bucket.
+     *
+     * @param bucket index below {@link #SETTLE_FRAME_BUCKET_COUNT}, see
+     * {@link #getSettleFrameBound(int)}
+     */
+    public long getSettleFrameCount(int bucket) {
+      return settleFrames[bucket];
+    }
+  }
+}
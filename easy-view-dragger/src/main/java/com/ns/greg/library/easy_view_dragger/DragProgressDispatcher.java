@@ -0,0 +1,158 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.view.Choreographer;
+import android.view.View;
+import com.ns.greg.library.easy_view_dragger.core.DragStateTable;
+import java.util.Arrays;
+
+/**
+ * Dispatches the drag progress of the layout to its {@link ViewDragLayout.OnDragListener}s, at
+ * most once per frame. The moves only mark the layout dirty, the next frame reports the children
+ * whose fractions changed, the state and the open transitions. The listeners are kept in a copy on
+ * write array, so a dispatch allocates nothing.
+ */
+final class DragProgressDispatcher implements Choreographer.FrameCallback {
+
+  private static final ViewDragLayout.OnDragListener[] NO_LISTENERS =
+      new ViewDragLayout.OnDragListener[0];
+
+  private final ViewDragLayout layout;
+  private final DragStateTable states;
+  private ViewDragLayout.OnDragListener[] listeners = NO_LISTENERS;
+  /**
+   * Last reported fractions, x and y per slot
+   */
+  private float[] fractions = new float[8];
+  private boolean[] opens = new boolean[4];
+  private int state = ViewDragLayout.STATE_IDLE;
+  private boolean posted;
+
+  DragProgressDispatcher(ViewDragLayout layout, DragStateTable states) {
+    this.layout = layout;
+    this.states = states;
+    Arrays.fill(fractions, Float.NaN);
+  }
+
+  void addListener(ViewDragLayout.OnDragListener listener) {
+    int count = listeners.length;
+    ViewDragLayout.OnDragListener[] added = Arrays.copyOf(listeners, count + 1);
+    added[count] = listener;
+    listeners = added;
+    invalidate();
+  }
+
+  void removeListener(ViewDragLayout.OnDragListener listener) {
+    int count = listeners.length;
+    for (int i = 0; i < count; i++) {
+      if (listeners[i] == listener) {
+        ViewDragLayout.OnDragListener[] removed = new ViewDragLayout.OnDragListener[count - 1];
+        System.arraycopy(listeners, 0, removed, 0, i);
+        System.arraycopy(listeners, i + 1, removed, i, count - i - 1);
+        listeners = removed.length > 0 ? removed : NO_LISTENERS;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Forgets the reported progress of the slot, e.g. when it's given to a new child.
+   */
+  void resetSlot(int slot) {
+    if (slot * 2 + 1 < fractions.length) {
+      fractions[slot * 2] = Float.NaN;
+      fractions[slot * 2 + 1] = Float.NaN;
+      opens[slot] = false;
+    }
+  }
+
+  /**
+   * Marks the progress dirty, it's dispatched on the next frame.
+   */
+  void invalidate() {
+    if (!posted && listeners.length > 0) {
+      posted = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+
+  /**
+   * Drops the pending dispatch, e.g. when the layout is detached.
+   */
+  void cancel() {
+    if (posted) {
+      posted = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+  }
+
+  @Override public void doFrame(long frameTimeNanos) {
+    posted = false;
+    ViewDragLayout.OnDragListener[] targets = listeners;
+    if (targets.length == 0) {
+      return;
+    }
+
+    int size = states.size();
+    if (size * 2 > fractions.length) {
+      int oldLength = fractions.length;
+      fractions = Arrays.copyOf(fractions, size * 2);
+      Arrays.fill(fractions, oldLength, fractions.length, Float.NaN);
+      opens = Arrays.copyOf(opens, size);
+    }
+
+    int newState = layout.getDragState();
+    if (newState != state) {
+      state = newState;
+      for (ViewDragLayout.OnDragListener listener : targets) {
+        listener.onDragStateChanged(newState);
+      }
+    }
+
+    for (int slot = 0; slot < size; slot++) {
+      View child = layout.getSlotView(slot);
+      if (!states.isInUse(slot) || child == null) {
+        continue;
+      }
+
+      float fractionX = 0;
+      float fractionY = 0;
+      boolean open = false;
+      if (states.hasDistanceX(slot)) {
+        int left = child.getLeft();
+        fractionX = fraction(left, states.getMinX(slot), states.getMaxX(slot));
+        open = left != states.getStartX(slot);
+      }
+
+      if (states.hasDistanceY(slot)) {
+        int top = child.getTop();
+        fractionY = fraction(top, states.getMinY(slot), states.getMaxY(slot));
+        open |= top != states.getStartY(slot);
+      }
+
+      // NaN never equals, so the first frame reports every child
+      if (fractionX != fractions[slot * 2] || fractionY != fractions[slot * 2 + 1]) {
+        fractions[slot * 2] = fractionX;
+        fractions[slot * 2 + 1] = fractionY;
+        for (ViewDragLayout.OnDragListener listener : targets) {
+          listener.onDragProgress(child, fractionX, fractionY);
+        }
+      }
+
+      // Open status only changes when the children rest
+      if (newState == ViewDragLayout.STATE_IDLE && open != opens[slot]) {
+        opens[slot] = open;
+        for (ViewDragLayout.OnDragListener listener : targets) {
+          listener.onOpenChanged(child, open);
+        }
+      }
+    }
+  }
+
+  private static float fraction(int position, int min, int max) {
+    if (max == min) {
+      return 0;
+    }
+
+    return Math.max(0, Math.min(1, (float) (position - min) / (max - min)));
+  }
+}
@@ -0,0 +1,388 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.support.annotation.IdRes;
+import android.util.SparseArray;
+import android.view.View;
+import com.ns.greg.library.easy_view_dragger.core.Resistance;
+import com.ns.greg.library.easy_view_dragger.core.SettleEngine;
+
+/**
+ * Immutable drag options which can be shared by any number of layouts, e.g. all the rows of a
+ * list, with {@link ViewDragLayout#setDragSpec(DragSpec)}. The distances are in dp, they are
+ * resolved once per display density and the resolved options are shared, so the builder work and
+ * the option arrays are not repeated per row. Each layout still applies them once to its own drag
+ * states, flags, distances, anchors and hooks in its own coordinates, so that memory grows with
+ * the rows which are created, not with the binds. It's safe to build on any thread and to share
+ * between threads.
+ */
+public final class DragSpec {
+
+  private final DragConfig template;
+  /**
+   * Distances in dp as left, right (top, bottom) then the anchors, keyed by child id, NO_ID for
+   * all children
+   */
+  private final SparseArray<float[]> distancesX;
+  private final SparseArray<float[]> distancesY;
+  private volatile Resolved resolved;
+
+  private DragSpec(Builder builder) {
+    // Copies, so the builder can go on without changing the spec
+    template = new DragConfig();
+    template.merge(builder.config);
+    distancesX = builder.distancesX.clone();
+    distancesY = builder.distancesY.clone();
+  }
+
+  /**
+   * Returns the options in pixels of the density, they must not be modified.
+   */
+  DragConfig resolve(float density) {
+    Resolved current = resolved;
+    if (current != null && current.density == density) {
+      return current.config;
+    }
+
+    DragConfig config = new DragConfig();
+    config.merge(template);
+    if (config.has(DragConfig.DRAG_X)) {
+      float[] distance = distancesX.get(View.NO_ID);
+      config.leftX = toPixel(distance[0], density);
+      config.rightX = toPixel(distance[1], density);
+      config.anchorsX = toAnchors(distance, density);
+    }
+
+    if (config.has(DragConfig.DRAG_Y)) {
+      float[] distance = distancesY.get(View.NO_ID);
+      config.topY = toPixel(distance[0], density);
+      config.bottomY = toPixel(distance[1], density);
+      config.anchorsY = toAnchors(distance, density);
+    }
+
+    int size = config.children.size();
+    for (int i = 0; i < size; i++) {
+      int childId = config.children.keyAt(i);
+      DragConfig.Child child = config.children.valueAt(i);
+      if ((child.options & DragConfig.DRAG_X) != 0) {
+        float[] distance = distancesX.get(childId);
+        child.leftX = toPixel(distance[0], density);
+        child.rightX = toPixel(distance[1], density);
+        child.anchorsX = toAnchors(distance, density);
+      }
+
+      if ((child.options & DragConfig.DRAG_Y) != 0) {
+        float[] distance = distancesY.get(childId);
+        child.topY = toPixel(distance[0], density);
+        child.bottomY = toPixel(distance[1], density);
+        child.anchorsY = toAnchors(distance, density);
+      }
+    }
+
+    config.shared = true;
+    resolved = new Resolved(density, config);
+    return config;
+  }
+
+  private static int toPixel(float dp, float density) {
+    return Math.round(dp * density);
+  }
+
+  private static int[] toAnchors(float[] distance, float density) {
+    if (distance.length == 2) {
+      return null;
+    }
+
+    int[] anchors = new int[distance.length - 2];
+    for (int i = 0; i < anchors.length; i++) {
+      anchors[i] = toPixel(distance[i + 2], density);
+    }
+
+    return anchors;
+  }
+
+  private static float[] toDistance(float start, float end, float[] anchors) {
+    int count = anchors != null ? anchors.length : 0;
+    float[] distance = new float[2 + count];
+    distance[0] = start;
+    distance[1] = end;
+    if (count > 0) {
+      System.arraycopy(anchors, 0, distance, 2, count);
+    }
+
+    return distance;
+  }
+
+  /**
+   * Options resolved for a density
+   */
+  private static final class Resolved {
+
+    final float density;
+    final DragConfig config;
+
+    Resolved(float density, DragConfig config) {
+      this.density = density;
+      this.config = config;
+    }
+  }
+
+  /**
+   * Same options as {@link ViewDragLayout.Builder}, with the distances in dp.
+   */
+  public static final class Builder {
+
+    private final DragConfig config = new DragConfig();
+    private final SparseArray<float[]> distancesX = new SparseArray<>();
+    private final SparseArray<float[]> distancesY = new SparseArray<>();
+
+    /**
+     * Sets view group layout type
+     *
+     * @param layoutType layout type {@link ViewDragLayout#HOVER_FRAME_OVERLAY}, {@link
+     * ViewDragLayout#HOVER_LINEAR_HORIZONTAL}, {@link ViewDragLayout#HOVER_LINEAR_VERTICAL}
+     */
+    public Builder setLayoutType(@ViewDragLayout.HoverMode int layoutType) {
+      config.options |= DragConfig.LAYOUT_TYPE;
+      config.layoutType = layoutType;
+      return this;
+    }
+
+    /**
+     * Sets all child's drag direction flag
+     *
+     * @param dragDirectionFlag drag flag
+     */
+    public Builder setDragDirectionFlag(@ViewDragLayout.DragFlag int dragDirectionFlag) {
+      config.setDragFlag(dragDirectionFlag);
+      return this;
+    }
+
+    /**
+     * Sets specific child's drag direction flag
+     *
+     * @param childId specific child id
+     * @param dragDirectionFlag drag flag
+     */
+    public Builder setSpecificDragDirectionFlag(@IdRes int childId,
+        @ViewDragLayout.DragFlag int dragDirectionFlag) {
+      config.setSpecificDragFlag(childId, dragDirectionFlag);
+      return this;
+    }
+
+    /**
+     * Sets edge tracking flag to drag specific child.
+     *
+     * @param dragChildId specific child id
+     * @param edgeFlag tracking flag
+     */
+    public Builder setSpecificDragEdgeFlag(@IdRes int dragChildId, int edgeFlag) {
+      config.setSpecificEdgeFlag(dragChildId, edgeFlag);
+      return this;
+    }
+
+    /**
+     * Sets all child's drag distance x
+     *
+     * @param leftDp left distance in dp
+     * @param rightDp right distance in dp
+     * @param anchorsDp snap positions in dp as offsets from the start point
+     */
+    public Builder setDragX(float leftDp, float rightDp, float... anchorsDp) {
+      config.setDragX(0, 0, null);
+      distancesX.put(View.NO_ID, toDistance(leftDp, rightDp, anchorsDp));
+      return this;
+    }
+
+    /**
+     * Sets specific child's drag distance x
+     *
+     * @param childId specific child id
+     * @param leftDp left distance in dp
+     * @param rightDp right distance in dp
+     * @param anchorsDp snap positions in dp as offsets from the start point
+     */
+    public Builder setSpecificDragX(@IdRes int childId, float leftDp, float rightDp,
+        float... anchorsDp) {
+      config.setSpecificDragX(childId, 0, 0, null);
+      distancesX.put(childId, toDistance(leftDp, rightDp, anchorsDp));
+      return this;
+    }
+
+    /**
+     * Sets all child's drag distance y
+     *
+     * @param topDp top distance in dp
+     * @param bottomDp bottom distance in dp
+     * @param anchorsDp snap positions in dp as offsets from the start point
+     */
+    public Builder setDragY(float topDp, float bottomDp, float... anchorsDp) {
+      config.setDragY(0, 0, null);
+      distancesY.put(View.NO_ID, toDistance(topDp, bottomDp, anchorsDp));
+      return this;
+    }
+
+    /**
+     * Sets specific child's drag distance y
+     *
+     * @param childId specific child id
+     * @param topDp top distance in dp
+     * @param bottomDp bottom distance in dp
+     * @param anchorsDp snap positions in dp as offsets from the start point
+     */
+    public Builder setSpecificDragY(@IdRes int childId, float topDp, float bottomDp,
+        float... anchorsDp) {
+      config.setSpecificDragY(childId, 0, 0, null);
+      distancesY.put(childId, toDistance(topDp, bottomDp, anchorsDp));
+      return this;
+    }
+
+    /**
+     * Drags the layout as chain
+     * [NOTICED] this only work at linear mode
+     */
+    public Builder asChain() {
+      config.options |= DragConfig.CHAIN;
+      config.chainEnable = true;
+      return this;
+    }
+
+    /**
+     * Chained view together while drag, see {@link ViewDragLayout.Builder#hookWith(int, int...)}
+     *
+     * @param targetId target root view
+     * @param chainId the view you want to asChain together
+     */
+    public Builder hookWith(@IdRes int targetId, int... chainId) {
+      config.setHooks(targetId, chainId.clone());
+      return this;
+    }
+
+    /**
+     * Hooks one view to the target with ratios, the hooks must not make a cycle.
+     *
+     * @param targetId target root view
+     * @param hookId the view which follows the target
+     * @param ratioX x movement of the view per x movement of the target, negative reverses it
+     * @param ratioY y movement of the view per y movement of the target, negative reverses it
+     */
+    public Builder hookWithRatio(@IdRes int targetId, @IdRes int hookId, float ratioX,
+        float ratioY) {
+      config.addHook(targetId, hookId, ratioX, ratioY);
+      return this;
+    }
+
+    /**
+     * No drags, just pull
+     */
+    public Builder asPull() {
+      config.options |= DragConfig.PULL;
+      config.pullEnable = true;
+      return this;
+    }
+
+    /**
+     * Sets the factor of speed
+     *
+     * @param speedFactor factor that directly proportional to speed
+     */
+    public Builder speedFactor(float speedFactor) {
+      config.options |= DragConfig.SPEED_FACTOR;
+      config.speedFactor = speedFactor;
+      return this;
+    }
+
+    /**
+     * Sets the drag resistance of all children, null moves linearly and stops at the bounds
+     *
+     * @param resistance drag resistance
+     */
+    public Builder resistance(Resistance resistance) {
+      config.setResistance(resistance);
+      return this;
+    }
+
+    /**
+     * Sets the drag resistance of the specific view
+     *
+     * @param childId the specific view id
+     * @param resistance drag resistance
+     */
+    public Builder setSpecificResistance(@IdRes int childId, Resistance resistance) {
+      config.setSpecificResistance(childId, resistance);
+      return this;
+    }
+
+    /**
+     * Sets the press time that trigger drag
+     *
+     * @param pressTime press time
+     */
+    public Builder pressTime(long pressTime) {
+      config.options |= DragConfig.PRESS_TIME;
+      config.pressTime = pressTime;
+      return this;
+    }
+
+    /**
+     * Sets how a drag starts, see {@link ViewDragLayout.Builder#startMode(int)}
+     *
+     * @param startMode drag start mode
+     */
+    public Builder startMode(@ViewDragLayout.StartMode int startMode) {
+      config.options |= DragConfig.START_MODE;
+      config.startMode = startMode;
+      return this;
+    }
+
+    /**
+     * Resamples the drag position to the time of the frame that shows it
+     *
+     * @param resampleInput true enable, false otherwise
+     */
+    public Builder resampleInput(boolean resampleInput) {
+      config.options |= DragConfig.INPUT_RESAMPLING;
+      config.inputResamplingEnable = resampleInput;
+      return this;
+    }
+
+    /**
+     * Collects the drag metrics of the layout
+     *
+     * @param collectMetrics true enable, false otherwise
+     */
+    public Builder collectMetrics(boolean collectMetrics) {
+      config.options |= DragConfig.METRICS;
+      config.metricsEnable = collectMetrics;
+      return this;
+    }
+
+    /**
+     * Promotes the dragged or settling child to hardware layer
+     *
+     * @param promoteLayers true enable, false otherwise
+     */
+    public Builder promoteLayers(boolean promoteLayers) {
+      config.options |= DragConfig.LAYER_PROMOTION;
+      config.layerPromotionEnable = promoteLayers;
+      return this;
+    }
+
+    /**
+     * Sets the physics of the release settle, null restores the default
+     *
+     * @param settleEngine settle physics
+     */
+    public Builder settleEngine(SettleEngine settleEngine) {
+      config.options |= DragConfig.SETTLE_ENGINE;
+      config.settleEngine = settleEngine;
+      return this;
+    }
+
+    /**
+     * Builds the spec, the later changes of the builder don't change it.
+     */
+    public DragSpec build() {
+      return new DragSpec(this);
+    }
+  }
+}
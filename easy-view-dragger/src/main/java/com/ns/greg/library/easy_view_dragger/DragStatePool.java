@@ -0,0 +1,75 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.support.v4.util.LongSparseArray;
+
+/**
+ * Keeps the drag offsets of recycled {@link ViewDragLayout} rows, keyed by adapter position or
+ * stable id. Only the rows that are dragged off their start points are stored.
+ *
+ * Configure the layout once when its view holder is created, then call
+ * {@link #bind(ViewDragLayout, long)} when it's bound, the offsets are restored immediately
+ * without any builder work.
+ */
+public final class DragStatePool {
+
+  public static final long NO_KEY = -1;
+
+  private final LongSparseArray<int[]> offsets = new LongSparseArray<>();
+  private int[] scrap;
+
+  /**
+   * Binds the layout to the key, the offsets of the key it was bound to are saved, then the
+   * offsets of the new key are restored, or the children are moved back to their start points.
+   *
+   * @param layout the row layout
+   * @param key adapter position or stable id
+   */
+  public void bind(ViewDragLayout layout, long key) {
+    save(layout);
+    layout.setPoolKey(key);
+    layout.setDragOffsets(offsets.get(key));
+  }
+
+  /**
+   * Saves the offsets of the layout under the key it's bound to, e.g. when the row is recycled.
+   *
+   * @param layout the row layout
+   */
+  public void save(ViewDragLayout layout) {
+    long key = layout.getPoolKey();
+    if (key == NO_KEY) {
+      return;
+    }
+
+    int size = layout.getDragOffsetSize();
+    int[] saved = offsets.get(key);
+    if (saved == null || saved.length != size) {
+      saved = scrap != null && scrap.length == size ? scrap : new int[size];
+      scrap = null;
+    }
+
+    if (layout.getDragOffsets(saved)) {
+      offsets.put(key, saved);
+    } else {
+      // Rows at their start points are not kept
+      offsets.remove(key);
+      scrap = saved;
+    }
+  }
+
+  /**
+   * Forgets the offsets of the key, e.g. when the item is removed.
+   *
+   * @param key adapter position or stable id
+   */
+  public void remove(long key) {
+    offsets.remove(key);
+  }
+
+  /**
+   * Forgets all the offsets.
+   */
+  public void clear() {
+    offsets.clear();
+  }
+}
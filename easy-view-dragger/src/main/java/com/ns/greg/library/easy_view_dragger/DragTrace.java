@@ -0,0 +1,55 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.support.v4.os.TraceCompat;
+
+/**
+ * Trace sections of the drag layer, they show up as slices in systrace and Perfetto captures.
+ * The section names are constants and a disabled section is only a field read, so the sections
+ * cost nothing when tracing is off.
+ */
+final class DragTrace {
+
+  static final String MEASURE = "ViewDragLayout#onMeasure";
+  static final String LAYOUT = "ViewDragLayout#onLayout";
+  static final String INTERCEPT = "ViewDragLayout#onInterceptTouchEvent";
+  static final String TOUCH = "ViewDragLayout#onTouchEvent";
+  static final String CLAMP_HORIZONTAL = "ViewDragLayout#clampHorizontal";
+  static final String CLAMP_VERTICAL = "ViewDragLayout#clampVertical";
+  static final String POSITION_CHANGED = "ViewDragLayout#onChildMoved";
+  static final String SETTLE_FRAME = "ViewDragLayout#settleFrame";
+
+  private static volatile boolean enabled;
+
+  private DragTrace() {
+  }
+
+  static void setEnabled(boolean enabled) {
+    DragTrace.enabled = enabled;
+  }
+
+  static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Begins the section if tracing is enabled, end it with {@link #end(boolean)} with the returned
+   * value, so a toggle in between keeps the sections balanced.
+   *
+   * @param name one of the section names
+   * @return true if the section is begun
+   */
+  static boolean begin(String name) {
+    if (!enabled) {
+      return false;
+    }
+
+    TraceCompat.beginSection(name);
+    return true;
+  }
+
+  static void end(boolean begun) {
+    if (begun) {
+      TraceCompat.endSection();
+    }
+  }
+}
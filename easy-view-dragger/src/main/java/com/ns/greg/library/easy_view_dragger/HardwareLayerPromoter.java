@@ -0,0 +1,49 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.view.View;
+
+/**
+ * Promotes the moving children to hardware layers and demotes them back to their own layer type,
+ * so a settle only re-composites the layers instead of re-rendering their display lists.
+ */
+final class HardwareLayerPromoter {
+
+  private View[] views = new View[4];
+  private int count;
+
+  /**
+   * Promotes the view, it is skipped if it already has a layer or is promoted.
+   *
+   * @param view the moving view
+   */
+  void promote(View view) {
+    if (view.getLayerType() != View.LAYER_TYPE_NONE) {
+      return;
+    }
+
+    if (count == views.length) {
+      View[] grown = new View[count * 2];
+      System.arraycopy(views, 0, grown, 0, count);
+      views = grown;
+    }
+
+    views[count++] = view;
+    view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+  }
+
+  /**
+   * Demotes all the promoted views.
+   */
+  void demoteAll() {
+    for (int i = 0; i < count; i++) {
+      views[i].setLayerType(View.LAYER_TYPE_NONE, null);
+      views[i] = null;
+    }
+
+    count = 0;
+  }
+
+  boolean hasPromoted() {
+    return count > 0;
+  }
+}
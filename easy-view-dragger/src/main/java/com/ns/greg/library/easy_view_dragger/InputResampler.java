@@ -0,0 +1,200 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.VelocityTracker;
+
+/**
+ * Optional input pipeline of the drag. It feeds every batched sample of the moves to its own
+ * {@link VelocityTracker} for the release velocity, and resamples the drag position to the time of
+ * the frame that will show it, so the per-frame deltas stay even when the samples don't line up
+ * with the vsync. The frame time is only taken on the frames after a sample, so an idle pointer
+ * costs no frame callback.
+ */
+final class InputResampler implements Choreographer.FrameCallback {
+
+  /**
+   * The position is resampled this much before the frame time, so it's mostly interpolated
+   */
+  private static final long RESAMPLE_LATENCY_MILLIS = 5;
+  /**
+   * Samples closer than this are too noisy to extrapolate
+   */
+  private static final long RESAMPLE_MIN_DELTA_MILLIS = 2;
+  private static final long RESAMPLE_MAX_PREDICTION_MILLIS = 8;
+  private static final long DEFAULT_FRAME_INTERVAL_NANOS = 16_666_667;
+  private static final long MIN_FRAME_INTERVAL_NANOS = 4_000_000;
+  private static final long MAX_FRAME_INTERVAL_NANOS = 50_000_000;
+  private static final long NANOS_PER_MILLI = 1_000_000;
+
+  private final float maxVelocity;
+  private VelocityTracker velocityTracker;
+  private boolean tracking;
+  private boolean posted;
+  private long lastFrameNanos;
+  private long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+  /**
+   * Latest sample of the previous event
+   */
+  private long previousTime;
+  private float previousX;
+  private float previousY;
+  /**
+   * Latest sample of the current event
+   */
+  private long currentTime;
+  private float currentX;
+  private float currentY;
+
+  InputResampler(float maxVelocity) {
+    this.maxVelocity = maxVelocity;
+  }
+
+  /**
+   * Tracks the event, it must be called once for every event of the gesture.
+   *
+   * @param event the event in the layout's coordinates
+   */
+  void addMovement(MotionEvent event) {
+    int action = event.getActionMasked();
+    if (action == MotionEvent.ACTION_DOWN) {
+      if (velocityTracker == null) {
+        velocityTracker = VelocityTracker.obtain();
+      } else {
+        velocityTracker.clear();
+      }
+
+      tracking = true;
+      lastFrameNanos = 0;
+    }
+
+    if (velocityTracker == null) {
+      return;
+    }
+
+    // The frame which shows the sample times the next one
+    if (tracking && !posted) {
+      posted = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    previousTime = currentTime;
+    previousX = currentX;
+    previousY = currentY;
+    currentTime = event.getEventTime();
+    currentX = event.getX();
+    currentY = event.getY();
+    // The tracker reads the historical samples of the event too
+    velocityTracker.addMovement(event);
+    if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+      velocityTracker.computeCurrentVelocity(1000, maxVelocity);
+      stop();
+    }
+  }
+
+  /**
+   * Returns the x velocity of the pointer at the last up, in pixels per second.
+   */
+  float getXVelocity(int pointerId) {
+    return velocityTracker != null ? velocityTracker.getXVelocity(pointerId) : 0;
+  }
+
+  /**
+   * Returns the y velocity of the pointer at the last up, in pixels per second.
+   */
+  float getYVelocity(int pointerId) {
+    return velocityTracker != null ? velocityTracker.getYVelocity(pointerId) : 0;
+  }
+
+  /**
+   * Returns a copy of the move with its position resampled to the time of the next frame, the
+   * caller must recycle it. The move must be tracked by {@link #addMovement(MotionEvent)} first.
+   *
+   * @param event the move
+   * @return the resampled move, or null if the move should be used as it is
+   */
+  MotionEvent resample(MotionEvent event) {
+    if (event.getPointerCount() != 1) {
+      return null;
+    }
+
+    // The sample before the latest one, from this move or the previous one
+    int historySize = event.getHistorySize();
+    long priorTime;
+    float priorX;
+    float priorY;
+    if (historySize > 0) {
+      priorTime = event.getHistoricalEventTime(historySize - 1);
+      priorX = event.getHistoricalX(historySize - 1);
+      priorY = event.getHistoricalY(historySize - 1);
+    } else {
+      priorTime = previousTime;
+      priorX = previousX;
+      priorY = previousY;
+    }
+
+    long time = event.getEventTime();
+    float x = event.getX();
+    float y = event.getY();
+    if (lastFrameNanos == 0) {
+      return null;
+    }
+
+    long delta = time - priorTime;
+    long sampleTime =
+        (lastFrameNanos + frameIntervalNanos) / NANOS_PER_MILLI - RESAMPLE_LATENCY_MILLIS;
+    if (sampleTime < priorTime || delta < RESAMPLE_MIN_DELTA_MILLIS) {
+      return null;
+    }
+
+    if (sampleTime > time) {
+      // Extrapolates, not further than half of the delta
+      sampleTime = Math.min(sampleTime,
+          time + Math.min(delta / 2, RESAMPLE_MAX_PREDICTION_MILLIS));
+    }
+
+    float alpha = (float) (sampleTime - priorTime) / delta;
+    MotionEvent resampled = MotionEvent.obtainNoHistory(event);
+    resampled.setLocation(priorX + (x - priorX) * alpha, priorY + (y - priorY) * alpha);
+    return resampled;
+  }
+
+  @Override public void doFrame(long frameTimeNanos) {
+    posted = false;
+    if (!tracking) {
+      return;
+    }
+
+    if (lastFrameNanos != 0) {
+      // The frames without a sample are skipped, so the gap may span several intervals
+      long interval = frameTimeNanos - lastFrameNanos;
+      long frames = Math.max(1, Math.round((double) interval / frameIntervalNanos));
+      frameIntervalNanos = Math.max(MIN_FRAME_INTERVAL_NANOS,
+          Math.min(MAX_FRAME_INTERVAL_NANOS, interval / frames));
+    }
+
+    lastFrameNanos = frameTimeNanos;
+  }
+
+  /**
+   * Stops following the frames.
+   */
+  void stop() {
+    tracking = false;
+    if (posted) {
+      posted = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+  }
+
+  /**
+   * Releases the velocity tracker.
+   */
+  void release() {
+    stop();
+    if (velocityTracker != null) {
+      velocityTracker.recycle();
+      velocityTracker = null;
+    }
+  }
+}
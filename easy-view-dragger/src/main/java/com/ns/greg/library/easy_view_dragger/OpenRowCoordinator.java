@@ -0,0 +1,101 @@
+package com.ns.greg.library.easy_view_dragger;
+
+/**
+ * Keeps at most one registered {@link ViewDragLayout} open, e.g. the rows of a list. When a row
+ * starts to drag, or comes to rest open, the open row is closed. Only the open row is referenced,
+ * and it's forgotten when it's closed or detached, so the registered rows are never leaked.
+ *
+ * Register the row once when its view holder is created, and call {@link #closeOpenLayout()}
+ * when the list scrolls.
+ */
+public final class OpenRowCoordinator {
+
+  private ViewDragLayout openLayout;
+
+  /**
+   * Registers the layout, it leaves the coordinator it was registered with.
+   *
+   * @param layout the row layout
+   */
+  public void register(ViewDragLayout layout) {
+    OpenRowCoordinator current = layout.getOpenCoordinator();
+    if (current == this) {
+      return;
+    }
+
+    if (current != null) {
+      current.unregister(layout);
+    }
+
+    layout.setOpenCoordinator(this);
+  }
+
+  /**
+   * Unregisters the layout, it's left as it is.
+   *
+   * @param layout the row layout
+   */
+  public void unregister(ViewDragLayout layout) {
+    if (layout.getOpenCoordinator() != this) {
+      return;
+    }
+
+    layout.setOpenCoordinator(null);
+    if (openLayout == layout) {
+      openLayout = null;
+    }
+  }
+
+  /**
+   * Returns the open layout, or null if every registered layout is closed.
+   */
+  public ViewDragLayout getOpenLayout() {
+    return openLayout;
+  }
+
+  /**
+   * Closes the open layout, e.g. when the list scrolls.
+   */
+  public void closeOpenLayout() {
+    ViewDragLayout open = openLayout;
+    if (open != null) {
+      openLayout = null;
+      open.closeViews(null);
+    }
+  }
+
+  /**
+   * Called when the layout is about to capture a child.
+   */
+  void onCapture(ViewDragLayout layout) {
+    if (openLayout != layout) {
+      closeOpenLayout();
+    }
+  }
+
+  /**
+   * Called when no child of the layout is dragged or settling.
+   *
+   * @param layout the layout
+   * @param open true if any child is off its start point
+   */
+  void onRest(ViewDragLayout layout, boolean open) {
+    if (open) {
+      if (openLayout != layout) {
+        closeOpenLayout();
+        openLayout = layout;
+      }
+    } else if (openLayout == layout) {
+      openLayout = null;
+    }
+  }
+
+  /**
+   * Called when the layout is detached, it's not tracked until it rests open again.
+   */
+  void onDetached(ViewDragLayout layout) {
+    if (openLayout == layout) {
+      openLayout = null;
+    }
+  }
+}
@@ -0,0 +1,299 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.view.Choreographer;
+import android.view.View;
+import com.ns.greg.library.easy_view_dragger.core.SettleEngine;
+
+/**
+ * Drives the settles of the released children with a {@link SettleEngine}, one frame callback
+ * moves all the settling children. The settle of a slot is kept in flat arrays, so a frame
+ * allocates nothing.
+ */
+final class SettleDriver implements Choreographer.FrameCallback {
+
+  interface Listener {
+
+    /**
+     * Called after the settling child is moved by the frame.
+     */
+    void onSettleMoved(View child, int dx, int dy);
+
+    /**
+     * Called when the child arrives at its target.
+     *
+     * @param child the settled child
+     * @param frames frames the settle took
+     */
+    void onSettleCompleted(View child, int frames);
+
+    /**
+     * Called when the last settle is finished, the children are at their targets. It's not
+     * called when the settles are cancelled.
+     */
+    void onSettleFinished();
+  }
+
+  /*--------------------------------
+   * Settle layout, STRIDE values per slot
+   *-------------------------------*/
+
+  private static final int TARGET_X = 0;
+  private static final int DISPLACEMENT_X = 1;
+  private static final int VELOCITY_X = 2;
+  private static final int DURATION_X = 3;
+  private static final int TARGET_Y = 4;
+  private static final int DISPLACEMENT_Y = 5;
+  private static final int VELOCITY_Y = 6;
+  private static final int DURATION_Y = 7;
+  private static final int STRIDE = 8;
+
+  private static final float NANOS_PER_SECOND = 1_000_000_000f;
+
+  private final Listener listener;
+  private SettleEngine engine;
+  private View[] views = new View[4];
+  private float[] values = new float[4 * STRIDE];
+  private long[] startTimes = new long[4];
+  private int[] frameCounts = new int[4];
+  private int activeCount;
+  private boolean posted;
+
+  SettleDriver(Listener listener) {
+    this.listener = listener;
+  }
+
+  void setEngine(SettleEngine engine) {
+    this.engine = engine;
+  }
+
+  SettleEngine getEngine() {
+    return engine;
+  }
+
+  /**
+   * Settles the child to the target, it replaces the running settle of the slot.
+   *
+   * @param child the settling child
+   * @param slot drag state slot of the child
+   * @param left target left
+   * @param top target top
+   * @param xvel initial x velocity in pixels per second
+   * @param yvel initial y velocity in pixels per second
+   * @return true if the child is settling, false if it's already at the target
+   */
+  boolean start(View child, int slot, int left, int top, float xvel, float yvel) {
+    int dx = child.getLeft() - left;
+    int dy = child.getTop() - top;
+    if (dx == 0 && dy == 0) {
+      cancel(slot);
+      return false;
+    }
+
+    if (slot >= views.length) {
+      grow(slot + 1);
+    }
+
+    int base = slot * STRIDE;
+    values[base + TARGET_X] = left;
+    values[base + DISPLACEMENT_X] = dx;
+    values[base + VELOCITY_X] = dx != 0 ? xvel : 0;
+    values[base + DURATION_X] = dx != 0 ? engine.getDuration(dx, xvel) : 0;
+    values[base + TARGET_Y] = top;
+    values[base + DISPLACEMENT_Y] = dy;
+    values[base + VELOCITY_Y] = dy != 0 ? yvel : 0;
+    values[base + DURATION_Y] = dy != 0 ? engine.getDuration(dy, yvel) : 0;
+    // Same time base as the frame time
+    startTimes[slot] = System.nanoTime();
+    frameCounts[slot] = 0;
+    if (views[slot] == null) {
+      activeCount++;
+    }
+
+    views[slot] = child;
+    if (!posted) {
+      posted = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    return true;
+  }
+
+  boolean isSettling() {
+    return activeCount > 0;
+  }
+
+  boolean isSettling(int slot) {
+    return slot < views.length && views[slot] != null;
+  }
+
+  /**
+   * Returns the target left of the settle of the slot, see {@link #isSettling(int)}.
+   */
+  int getTargetLeft(int slot) {
+    return (int) values[slot * STRIDE + TARGET_X];
+  }
+
+  /**
+   * Returns the target top of the settle of the slot, see {@link #isSettling(int)}.
+   */
+  int getTargetTop(int slot) {
+    return (int) values[slot * STRIDE + TARGET_Y];
+  }
+
+  /**
+   * Stops the settle of the slot where the child is, e.g. the child is already at its new target
+   * or it's removed. The last settle stopped this way finishes the settles, so it doesn't hold
+   * back the listener.
+   *
+   * @param slot drag state slot of the child
+   */
+  void cancel(int slot) {
+    if (isSettling(slot)) {
+      views[slot] = null;
+      activeCount--;
+      if (activeCount == 0) {
+        stop(true);
+      }
+    }
+  }
+
+  /**
+   * Stops all the settles where the children are, e.g. when a touch takes over, the listener is
+   * not told the settles are finished.
+   */
+  void cancelAll() {
+    if (activeCount == 0) {
+      return;
+    }
+
+    for (int slot = 0; slot < views.length; slot++) {
+      views[slot] = null;
+    }
+
+    activeCount = 0;
+    stop(false);
+  }
+
+  /**
+   * Moves all the settling children to their targets and stops.
+   */
+  void endAll() {
+    if (activeCount == 0) {
+      return;
+    }
+
+    for (int slot = 0; slot < views.length; slot++) {
+      View view = views[slot];
+      if (view != null) {
+        int base = slot * STRIDE;
+        move(view, (int) values[base + TARGET_X], (int) values[base + TARGET_Y]);
+        views[slot] = null;
+      }
+    }
+
+    activeCount = 0;
+    stop(true);
+  }
+
+  @Override public void doFrame(long frameTimeNanos) {
+    boolean traced = DragTrace.begin(DragTrace.SETTLE_FRAME);
+    try {
+      settleFrame(frameTimeNanos);
+    } finally {
+      DragTrace.end(traced);
+    }
+  }
+
+  private void settleFrame(long frameTimeNanos) {
+    posted = false;
+    for (int slot = 0; slot < views.length && activeCount > 0; slot++) {
+      View view = views[slot];
+      if (view == null) {
+        continue;
+      }
+
+      int base = slot * STRIDE;
+      float elapsed = Math.max(0, (frameTimeNanos - startTimes[slot]) / NANOS_PER_SECOND);
+      int left = position(base + TARGET_X, elapsed);
+      int top = position(base + TARGET_Y, elapsed);
+      frameCounts[slot]++;
+      boolean completed =
+          elapsed >= values[base + DURATION_X] && elapsed >= values[base + DURATION_Y];
+      if (completed) {
+        views[slot] = null;
+        activeCount--;
+      }
+
+      move(view, left, top);
+      if (completed) {
+        listener.onSettleCompleted(view, frameCounts[slot]);
+      }
+    }
+
+    if (activeCount > 0) {
+      posted = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    } else {
+      listener.onSettleFinished();
+    }
+  }
+
+  /**
+   * Returns the position of an axis at the elapsed time.
+   *
+   * @param axis index of the axis target
+   * @param elapsed elapsed time in seconds
+   */
+  private int position(int axis, float elapsed) {
+    float target = values[axis];
+    if (elapsed >= values[axis + 3]) {
+      return (int) target;
+    }
+
+    float displacement = engine.getDisplacement(values[axis + 1], values[axis + 2], elapsed);
+    return Math.round(target + displacement);
+  }
+
+  private void move(View view, int left, int top) {
+    int dx = left - view.getLeft();
+    int dy = top - view.getTop();
+    if (dx != 0) {
+      view.offsetLeftAndRight(dx);
+    }
+
+    if (dy != 0) {
+      view.offsetTopAndBottom(dy);
+    }
+
+    if (dx != 0 || dy != 0) {
+      listener.onSettleMoved(view, dx, dy);
+    }
+  }
+
+  private void stop(boolean finished) {
+    if (posted) {
+      posted = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    if (finished) {
+      listener.onSettleFinished();
+    }
+  }
+
+  private void grow(int capacity) {
+    int size = Math.max(capacity, views.length * 2);
+    View[] grownViews = new View[size];
+    System.arraycopy(views, 0, grownViews, 0, views.length);
+    views = grownViews;
+    float[] grownValues = new float[size * STRIDE];
+    System.arraycopy(values, 0, grownValues, 0, values.length);
+    values = grownValues;
+    long[] grownTimes = new long[size];
+    System.arraycopy(startTimes, 0, grownTimes, 0, startTimes.length);
+    startTimes = grownTimes;
+    int[] grownFrames = new int[size];
+    System.arraycopy(frameCounts, 0, grownFrames, 0, frameCounts.length);
+    frameCounts = grownFrames;
+  }
+}
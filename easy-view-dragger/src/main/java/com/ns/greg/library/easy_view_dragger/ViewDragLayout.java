@@ -1,23 +1,37 @@
 package com.ns.greg.library.easy_view_dragger;
 
 import android.content.Context;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.annotation.IdRes;
 import android.support.annotation.IntDef;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.view.AbsSavedState;
 import android.support.v4.view.MotionEventCompat;
 import android.support.v4.view.ViewCompat;
 import android.support.v4.widget.ViewDragHelper;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.util.SparseArray;
 import android.util.SparseIntArray;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
 import android.view.ViewParent;
 import android.widget.FrameLayout;
+import com.ns.greg.library.easy_view_dragger.core.Distance;
+import com.ns.greg.library.easy_view_dragger.core.DragPhysics;
+import com.ns.greg.library.easy_view_dragger.core.DragStateTable;
+import com.ns.greg.library.easy_view_dragger.core.DurationSettleEngine;
+import com.ns.greg.library.easy_view_dragger.core.HookGraph;
+import com.ns.greg.library.easy_view_dragger.core.Resistance;
+import com.ns.greg.library.easy_view_dragger.core.ResistanceCurve;
+import com.ns.greg.library.easy_view_dragger.core.SettleEngine;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -25,9 +39,6 @@ import java.util.List;
  */
 public class ViewDragLayout extends FrameLayout {
 
-  private static final String TAG = "ViewDragLayout";
-  private static final Boolean DEBUG = false;
-
   /*--------------------------------
    * Type definitions
    *-------------------------------*/
@@ -45,10 +56,10 @@ public class ViewDragLayout extends FrameLayout {
    * Direction definitions
    *-------------------------------*/
 
-  public static final int LEFT = 1;
-  public static final int TOP = 1 << 1;
-  public static final int RIGHT = 1 << 2;
-  public static final int BOTTOM = 1 << 3;
+  public static final int LEFT = DragPhysics.LEFT;
+  public static final int TOP = DragPhysics.TOP;
+  public static final int RIGHT = DragPhysics.RIGHT;
+  public static final int BOTTOM = DragPhysics.BOTTOM;
   public static final int DIRECTION_ALL = LEFT | TOP | RIGHT | BOTTOM;
 
   @IntDef(flag = true, value = { LEFT, TOP, RIGHT, BOTTOM, DIRECTION_ALL })
@@ -56,23 +67,59 @@ public class ViewDragLayout extends FrameLayout {
 
   }
 
+  /*--------------------------------
+   * Drag state definitions
+   *-------------------------------*/
+
+  public static final int STATE_IDLE = 0;
+  public static final int STATE_DRAGGING = 1;
+  public static final int STATE_SETTLING = 2;
+
+  @IntDef({ STATE_IDLE, STATE_DRAGGING, STATE_SETTLING })
+  @Retention(RetentionPolicy.SOURCE) public @interface DragState {
+
+  }
+
+  /*--------------------------------
+   * Drag start definitions
+   *-------------------------------*/
+
+  public static final int START_PRESS_TIME = 0;
+  public static final int START_INTENT = 1;
+
+  @IntDef({ START_PRESS_TIME, START_INTENT })
+  @Retention(RetentionPolicy.SOURCE) public @interface StartMode {
+
+  }
+
+  private static final int INTENT_UNKNOWN = 0;
+  private static final int INTENT_DRAG = 1;
+  private static final int INTENT_NONE = 2;
+
+  private static final int HOOK_UNVISITED = 0;
+  private static final int HOOK_VISITING = 1;
+  private static final int HOOK_VISITED = 2;
+
   /*--------------------------------
    * Constant declaration
    *-------------------------------*/
 
-  private static final int VELOCITY_THRESHOLD = 50;
   private static final long PRESS_TIME = 200;
+  private static final SettleEngine DEFAULT_SETTLE_ENGINE = new DurationSettleEngine();
+  /**
+   * No option for all children, the XML options of a child are applied with it
+   */
+  private static final DragConfig NO_OPTIONS = new DragConfig();
 
   /*--------------------------------
    * General declaration
    *-------------------------------*/
 
   private final List<View> childViews = new ArrayList<>();
-  private final SparseIntArray dragFlags = new SparseIntArray();
-  private final SparseArray<Distance> dragDistanceXs = new SparseArray<>();
-  private final SparseArray<Distance> dragDistanceYs = new SparseArray<>();
-  private final SparseIntArray edgeViews = new SparseIntArray();
-  private final SparseArray<List<View>> hookList = new SparseArray<>();
+  private final SparseArray<View> childIndex = new SparseArray<>();
+  private final DragStateTable dragStates = new DragStateTable();
+  private final HookGraph hookGraph = new HookGraph();
+  private View[] slotViews = new View[4];
   private ViewDragHelper viewDragHelper;
   private boolean vdhEnable = true;
   private @HoverMode int layoutType = HOVER_FRAME_OVERLAY;
@@ -82,6 +129,39 @@ public class ViewDragLayout extends FrameLayout {
   private float speedFactor = 1.0f;
   private long dispatchingTime;
   private long pressTime = PRESS_TIME;
+  private @StartMode int startMode = START_PRESS_TIME;
+  private float downX;
+  private float downY;
+  private int dragIntent = INTENT_UNKNOWN;
+  private DragConfig pendingConfig;
+  private DragSpec dragSpec;
+  private boolean hasPendingXmlOptions = false;
+  private boolean layerPromotionEnable = false;
+  private final HardwareLayerPromoter layerPromoter = new HardwareLayerPromoter();
+  private int[] pendingOffsets;
+  private boolean hasPendingOffsets = false;
+  private SavedState pendingSavedState;
+  private long poolKey = DragStatePool.NO_KEY;
+  private OpenRowCoordinator openCoordinator;
+  private final float velocityThreshold;
+  private final SettleDriver settleDriver;
+  private final List<Runnable> settleEndActions = new ArrayList<>();
+  private InputResampler inputResampler;
+  /**
+   * Resampled move of the event being dispatched, and the event
+   */
+  private MotionEvent resampledMove;
+  private MotionEvent resampledSource;
+  private DragMetrics metrics;
+  private boolean measureCacheValid = false;
+  private int widthSpecCache;
+  private int heightSpecCache;
+  private int horizontalPaddingCache;
+  private int verticalPaddingCache;
+  private int measuredWidthCache;
+  private int measuredHeightCache;
+  private final DragProgressDispatcher progressDispatcher =
+      new DragProgressDispatcher(this, dragStates);
 
   /*--------------------------------
    * Constructors
@@ -97,6 +177,15 @@ public class ViewDragLayout extends FrameLayout {
 
   public ViewDragLayout(Context context, AttributeSet attrs, int defStyle) {
     super(context, attrs, defStyle);
+    velocityThreshold =
+        DragPhysics.VELOCITY_THRESHOLD * context.getResources().getDisplayMetrics().density;
+    settleDriver = new SettleDriver(new SettleListener(this));
+    settleDriver.setEngine(DEFAULT_SETTLE_ENGINE);
+    // Resolved once here, so the first measure and layout already use them
+    DragConfig config = DragConfig.fromAttributes(context, attrs, defStyle);
+    if (config.options != 0) {
+      applyConfig(config);
+    }
   }
 
   /*--------------------------------
@@ -106,122 +195,236 @@ public class ViewDragLayout extends FrameLayout {
   @Override protected void onAttachedToWindow() {
     super.onAttachedToWindow();
     viewDragHelper = ViewDragHelper.create(this, 1.0f, new CustomViewDragHelperCallback(this));
+    viewDragHelper.setEdgeTrackingEnabled(edgeFlag);
+  }
+
+  @Override protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    settleDriver.endAll();
+    layerPromoter.demoteAll();
+    progressDispatcher.cancel();
+    if (inputResampler != null) {
+      inputResampler.stop();
+    }
+
+    if (openCoordinator != null) {
+      openCoordinator.onDetached(this);
+    }
+  }
+
+  @Override public void onViewAdded(View child) {
+    super.onViewAdded(child);
+    invalidateMeasureCache();
+    // Keep the same order as the children array
+    childViews.add(indexOfChild(child), child);
+    int slot = dragStates.acquire();
+    if (slot >= slotViews.length) {
+      View[] views = new View[slotViews.length * 2];
+      System.arraycopy(slotViews, 0, views, 0, slotViews.length);
+      slotViews = views;
+    }
+
+    slotViews[slot] = child;
+    progressDispatcher.resetSlot(slot);
+    LayoutParams lp = (LayoutParams) child.getLayoutParams();
+    lp.slot = slot;
+    if (lp.xmlOptions != null) {
+      lp.xmlOptionsApplied = false;
+      hasPendingXmlOptions = true;
+    }
+
+    int childId = child.getId();
+    if (childId != NO_ID) {
+      childIndex.put(childId, child);
+    }
+  }
+
+  @Override public void onViewRemoved(View child) {
+    super.onViewRemoved(child);
+    invalidateMeasureCache();
+    childViews.remove(child);
+    int slot = getSlot(child);
+    if (slot != DragStateTable.NO_SLOT) {
+      // The slot is reused by the next child, its settle must not move that one
+      settleDriver.cancel(slot);
+      dragStates.release(slot);
+      hookGraph.compile(dragStates);
+      slotViews[slot] = null;
+      ((LayoutParams) child.getLayoutParams()).slot = DragStateTable.NO_SLOT;
+    }
+
+    ViewGroup.LayoutParams lp = child.getLayoutParams();
+    if (lp instanceof LayoutParams) {
+      ((LayoutParams) lp).hasBase = false;
+      ((LayoutParams) lp).hookIds = null;
+    }
+
+    int childId = child.getId();
+    if (childId != NO_ID && childIndex.get(childId) == child) {
+      childIndex.remove(childId);
+    }
+  }
+
+  @Override protected LayoutParams generateDefaultLayoutParams() {
+    return new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+  }
+
+  @Override public LayoutParams generateLayoutParams(AttributeSet attrs) {
+    return new LayoutParams(getContext(), attrs);
+  }
+
+  @Override protected LayoutParams generateLayoutParams(ViewGroup.LayoutParams lp) {
+    if (lp instanceof FrameLayout.LayoutParams) {
+      return new LayoutParams((FrameLayout.LayoutParams) lp);
+    } else if (lp instanceof MarginLayoutParams) {
+      return new LayoutParams((MarginLayoutParams) lp);
+    }
+
+    return new LayoutParams(lp);
+  }
+
+  @Override protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+    return p instanceof LayoutParams;
+  }
+
+  /**
+   * Returns the drag state slot of the child.
+   *
+   * @param child the child
+   * @return the slot, or {@link DragStateTable#NO_SLOT} if the child is not tracked
+   */
+  private static int getSlot(View child) {
+    ViewGroup.LayoutParams lp = child.getLayoutParams();
+    return lp instanceof LayoutParams ? ((LayoutParams) lp).slot : DragStateTable.NO_SLOT;
+  }
+
+  /**
+   * Returns the drag states of the children, the slot of a child is in its layout params.
+   */
+  @VisibleForTesting DragStateTable getDragStates() {
+    return dragStates;
   }
 
   @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-    // Edge tracking
-    viewDragHelper.setEdgeTrackingEnabled(edgeFlag);
+    boolean traced = DragTrace.begin(DragTrace.MEASURE);
+    try {
+      if (isMeasureCached(widthMeasureSpec, heightMeasureSpec)) {
+        setMeasuredDimension(measuredWidthCache, measuredHeightCache);
+        return;
+      }
 
-    // Save child views
-    int childCount = getChildCount();
-    childViews.clear();
-    for (int i = 0; i < childCount; i++) {
-      View view = getChildAt(i);
-      childViews.add(view);
+      measureType(layoutType, widthMeasureSpec, heightMeasureSpec);
+      measureCacheValid = true;
+      widthSpecCache = widthMeasureSpec;
+      heightSpecCache = heightMeasureSpec;
+      horizontalPaddingCache = getPaddingLeft() + getPaddingRight();
+      verticalPaddingCache = getPaddingTop() + getPaddingBottom();
+      measuredWidthCache = getMeasuredWidth();
+      measuredHeightCache = getMeasuredHeight();
+    } finally {
+      DragTrace.end(traced);
+    }
+  }
+
+  /**
+   * Returns true if the last measure can be reused, the specs and the paddings are the same and
+   * no child requests layout.
+   */
+  private boolean isMeasureCached(int widthMeasureSpec, int heightMeasureSpec) {
+    if (!measureCacheValid
+        || widthMeasureSpec != widthSpecCache
+        || heightMeasureSpec != heightSpecCache
+        || horizontalPaddingCache != getPaddingLeft() + getPaddingRight()
+        || verticalPaddingCache != getPaddingTop() + getPaddingBottom()) {
+      return false;
+    }
+
+    int childCount = childViews.size();
+    for (int index = 0; index < childCount; index++) {
+      if (childViews.get(index).isLayoutRequested()) {
+        return false;
+      }
     }
 
-    measureChildren(widthMeasureSpec, heightMeasureSpec);
-    setMeasuredDimensionType(layoutType, widthMeasureSpec, heightMeasureSpec, childCount);
+    return true;
   }
 
   /**
-   * Measure view group with current layout type
+   * Measures the children and the view group with current layout type in one pass
    *
    * @param layoutType layout type {@link #HOVER_FRAME_OVERLAY}, {@link #HOVER_LINEAR_HORIZONTAL},
-   * {@link
-   * #HOVER_LINEAR_VERTICAL}
+   * {@link #HOVER_LINEAR_VERTICAL}
    * @param widthMeasureSpec measure spec
    * @param heightMeasureSpec measure spec
-   * @param childCount group child count
    */
-  private void setMeasuredDimensionType(@HoverMode int layoutType, int widthMeasureSpec,
-      int heightMeasureSpec, int childCount) {
+  private void measureType(@HoverMode int layoutType, int widthMeasureSpec,
+      int heightMeasureSpec) {
     int widthMode = MeasureSpec.getMode(widthMeasureSpec);
     int widthSize = MeasureSpec.getSize(widthMeasureSpec);
     int heightMode = MeasureSpec.getMode(heightMeasureSpec);
     int heightSize = MeasureSpec.getSize(heightMeasureSpec);
-    int offsetLeftAndRight = getPaddingLeft() + getPaddingRight();
-    int offsetTopAndBottom = getPaddingTop() + getPaddingBottom();
-    if (DEBUG) {
-      Log.d(TAG, "measure - "
-          + layoutType
-          + " offsetLeftAndRight = ["
-          + offsetLeftAndRight
-          + ", offsetTopAndBottom = ["
-          + offsetTopAndBottom
-          + "]");
-    }
-
     int width = 0;
     int height = 0;
-    if (widthMode == MeasureSpec.EXACTLY && heightMode == MeasureSpec.EXACTLY) {
-      width = widthSize;
-      height = heightSize;
-    } else {
-      for (int index = 0; index < childCount; index++) {
-        View child = childViews.get(index);
-        int measureWidth = child.getMeasuredWidth();
-        int measureHeight = child.getMeasuredHeight();
-        switch (layoutType) {
-          case HOVER_FRAME_OVERLAY:
-            width = width < measureWidth ? measureWidth : width;
-            height = height < measureHeight ? measureHeight : height;
-            break;
-
-          case HOVER_LINEAR_HORIZONTAL:
-            width += measureWidth;
-            height = height < measureHeight ? measureHeight : height;
-            break;
-
-          case HOVER_LINEAR_VERTICAL:
-            width = width < measureWidth ? measureWidth : width;
-            height += measureHeight;
-            break;
-
-          default:
-            break;
-        }
+    int childCount = childViews.size();
+    for (int index = 0; index < childCount; index++) {
+      View child = childViews.get(index);
+      // Same as measureChildren, a gone child keeps its last measured size
+      if (child.getVisibility() != GONE) {
+        measureChild(child, widthMeasureSpec, heightMeasureSpec);
       }
 
-      if (widthMode == MeasureSpec.EXACTLY) {
-        width = widthSize;
-      } else {
-        width = Math.min(width + offsetLeftAndRight, widthSize);
-      }
+      int measureWidth = child.getMeasuredWidth();
+      int measureHeight = child.getMeasuredHeight();
+      switch (layoutType) {
+        case HOVER_FRAME_OVERLAY:
+          width = width < measureWidth ? measureWidth : width;
+          height = height < measureHeight ? measureHeight : height;
+          break;
 
-      if (heightMode == MeasureSpec.EXACTLY) {
-        height = heightSize;
-      } else {
-        height = Math.min(height + offsetTopAndBottom, heightSize);
+        case HOVER_LINEAR_HORIZONTAL:
+          width += measureWidth;
+          height = height < measureHeight ? measureHeight : height;
+          break;
+
+        case HOVER_LINEAR_VERTICAL:
+          width = width < measureWidth ? measureWidth : width;
+          height += measureHeight;
+          break;
+
+        default:
+          break;
       }
     }
 
-    if (DEBUG) {
-      Log.d(TAG, "measure - " + layoutType + ", width = [" + width + ", height = [" + height + "]");
-    }
+    setMeasuredDimension(
+        resolveMeasureSize(widthMode, widthSize, width + getPaddingLeft() + getPaddingRight()),
+        resolveMeasureSize(heightMode, heightSize, height + getPaddingTop() + getPaddingBottom()));
+  }
+
+  /**
+   * Returns the size of the spec if it's exact, otherwise the content size limited by it.
+   */
+  private static int resolveMeasureSize(int mode, int size, int content) {
+    return mode == MeasureSpec.EXACTLY ? size : Math.min(content, size);
+  }
 
-    setMeasuredDimension(width, height);
+  /**
+   * Drops the cached measure, e.g. when the children or the layout type change.
+   */
+  private void invalidateMeasureCache() {
+    measureCacheValid = false;
   }
 
   @Override protected void onLayout(boolean changed, int l, int t, int r, int b) {
-    if (DEBUG) {
-      Log.d(TAG, "onLayout - "
-          + "changed = ["
-          + changed
-          + "], l = ["
-          + l
-          + "], t = ["
-          + t
-          + "], r = ["
-          + r
-          + "], b = ["
-          + b
-          + "]"
-          + ", type = ["
-          + layoutType
-          + "]");
+    boolean traced = DragTrace.begin(DragTrace.LAYOUT);
+    try {
+      layoutChildren(l, t, r, b);
+    } finally {
+      DragTrace.end(traced);
     }
+  }
 
+  private void layoutChildren(int l, int t, int r, int b) {
     int childCount = childViews.size();
     if (childCount > 0) {
       switch (layoutType) {
@@ -241,6 +444,159 @@ public class ViewDragLayout extends FrameLayout {
           break;
       }
     }
+
+    // The children are in place, apply the options that wait for the first layout, the ones of
+    // the child's XML first so the builder overrides them
+    if (hasPendingXmlOptions) {
+      hasPendingXmlOptions = false;
+      applyXmlChildOptions();
+    }
+
+    if (pendingConfig != null) {
+      DragConfig config = pendingConfig;
+      pendingConfig = null;
+      applyChildOptions(config);
+    }
+
+    if (hasPendingOffsets) {
+      hasPendingOffsets = false;
+      applyDragOffsets(pendingOffsets);
+    }
+
+    if (pendingSavedState != null) {
+      SavedState state = pendingSavedState;
+      pendingSavedState = null;
+      applySavedState(state);
+    }
+
+    updateResistanceCurves();
+  }
+
+  @Override protected Parcelable onSaveInstanceState() {
+    SavedState state = new SavedState(super.onSaveInstanceState());
+    int count = 0;
+    int size = childViews.size();
+    for (int i = 0; i < size; i++) {
+      View child = childViews.get(i);
+      if (child.getId() != NO_ID && getSlot(child) != DragStateTable.NO_SLOT) {
+        count++;
+      }
+    }
+
+    state.childIds = new int[count];
+    state.offsets = new int[count * 2];
+    state.openFlags = new int[count];
+    int index = 0;
+    for (int i = 0; i < size; i++) {
+      View child = childViews.get(i);
+      int slot = getSlot(child);
+      if (child.getId() == NO_ID || slot == DragStateTable.NO_SLOT) {
+        continue;
+      }
+
+      int openFlag = 0;
+      if (dragStates.hasDistanceX(slot)) {
+        int start = dragStates.getStartX(slot);
+        int left = child.getLeft();
+        state.offsets[index * 2] = left - start;
+        openFlag |= getOpenFlag(left, start, dragStates.getMinX(slot), dragStates.getMaxX(slot),
+            SavedState.OPEN_MIN_X, SavedState.OPEN_MAX_X);
+      }
+
+      if (dragStates.hasDistanceY(slot)) {
+        int start = dragStates.getStartY(slot);
+        int top = child.getTop();
+        state.offsets[index * 2 + 1] = top - start;
+        openFlag |= getOpenFlag(top, start, dragStates.getMinY(slot), dragStates.getMaxY(slot),
+            SavedState.OPEN_MIN_Y, SavedState.OPEN_MAX_Y);
+      }
+
+      state.childIds[index] = child.getId();
+      state.openFlags[index] = openFlag;
+      index++;
+    }
+
+    return state;
+  }
+
+  /**
+   * Returns the open flag of the position, a child is open when it rests at an end of its
+   * distance which is not the start point.
+   */
+  private static int getOpenFlag(int position, int start, int min, int max, int minFlag,
+      int maxFlag) {
+    if (position == min && min != start) {
+      return minFlag;
+    } else if (position == max && max != start) {
+      return maxFlag;
+    }
+
+    return 0;
+  }
+
+  @Override protected void onRestoreInstanceState(Parcelable state) {
+    if (!(state instanceof SavedState)) {
+      super.onRestoreInstanceState(state);
+      return;
+    }
+
+    SavedState savedState = (SavedState) state;
+    super.onRestoreInstanceState(savedState.getSuperState());
+    if (pendingConfig == null && ViewCompat.isLaidOut(this)) {
+      applySavedState(savedState);
+    } else {
+      pendingSavedState = savedState;
+    }
+  }
+
+  /**
+   * Moves the children to the saved offsets without animation, an open child goes to the same
+   * end of its distance even if the distance is changed.
+   *
+   * @param state saved state
+   */
+  private void applySavedState(SavedState state) {
+    int count = state.childIds.length;
+    for (int i = 0; i < count; i++) {
+      View child = getView(state.childIds[i]);
+      int slot = child != null ? getSlot(child) : DragStateTable.NO_SLOT;
+      if (slot == DragStateTable.NO_SLOT) {
+        continue;
+      }
+
+      int openFlag = state.openFlags[i];
+      if (dragStates.hasDistanceX(slot)) {
+        int min = dragStates.getMinX(slot);
+        int max = dragStates.getMaxX(slot);
+        int left;
+        if ((openFlag & SavedState.OPEN_MIN_X) != 0) {
+          left = min;
+        } else if ((openFlag & SavedState.OPEN_MAX_X) != 0) {
+          left = max;
+        } else {
+          left = Math.max(min, Math.min(max, dragStates.getStartX(slot) + state.offsets[i * 2]));
+        }
+
+        child.offsetLeftAndRight(left - child.getLeft());
+      }
+
+      if (dragStates.hasDistanceY(slot)) {
+        int min = dragStates.getMinY(slot);
+        int max = dragStates.getMaxY(slot);
+        int top;
+        if ((openFlag & SavedState.OPEN_MIN_Y) != 0) {
+          top = min;
+        } else if ((openFlag & SavedState.OPEN_MAX_Y) != 0) {
+          top = max;
+        } else {
+          top = Math.max(min, Math.min(max, dragStates.getStartY(slot) + state.offsets[i * 2 + 1]));
+        }
+
+        child.offsetTopAndBottom(top - child.getTop());
+      }
+    }
+
+    progressDispatcher.invalidate();
   }
 
   /**
@@ -267,7 +623,7 @@ public class ViewDragLayout extends FrameLayout {
         top = (b - t) / 2 - (childHeight / 2);
       }
 
-      child.layout(left, top, left + childWidth, top + childHeight);
+      layoutChild(child, left, top);
     }
   }
 
@@ -279,7 +635,6 @@ public class ViewDragLayout extends FrameLayout {
    * @param childCount child count
    */
   private void layoutHorizontal(int t, int b, int childCount) {
-    boolean isInit = childViews.get(0).getLeft() == 0;
     int offset = 0;
     for (int index = 0; index < childCount; index++) {
       View child = childViews.get(index);
@@ -290,16 +645,8 @@ public class ViewDragLayout extends FrameLayout {
         top = (b - t) / 2 - (childHeight / 2);
       }
 
-      if (isInit) {
-        child.layout(0, top, childWidth, top + childHeight);
-        if (index > 0) {
-          child.offsetLeftAndRight(offset);
-        }
-
-        offset += childWidth;
-      } else {
-        child.layout(child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
-      }
+      layoutChild(child, offset, top);
+      offset += childWidth;
     }
   }
 
@@ -311,29 +658,68 @@ public class ViewDragLayout extends FrameLayout {
    * @param childCount child count
    */
   private void layoutVertical(int l, int r, int childCount) {
-    boolean isInit = childViews.get(0).getTop() == 0;
     int offset = 0;
     for (int index = 0; index < childCount; index++) {
       View child = childViews.get(index);
       int childWidth = child.getMeasuredWidth();
       int childHeight = child.getMeasuredHeight();
       int left = r - l - childWidth;
-
       if (left > 0) {
         left = (r - l) / 2 - (childWidth / 2);
       }
 
-      if (isInit) {
-        child.layout(left, 0, left + childWidth, childHeight);
-        if (index > 0) {
-          child.offsetTopAndBottom(offset);
+      layoutChild(child, left, offset);
+      offset += childHeight;
+    }
+  }
+
+  /**
+   * Places the child at its base position plus its drag offset. The drag offset is the distance
+   * from the base position of the last layout, so it survives relayout. The child is only laid out
+   * again if it requests layout or its measured size changed, otherwise it's just offset.
+   *
+   * @param child the child
+   * @param baseLeft left without drag offset
+   * @param baseTop top without drag offset
+   */
+  private void layoutChild(View child, int baseLeft, int baseTop) {
+    LayoutParams lp = (LayoutParams) child.getLayoutParams();
+    int left = baseLeft;
+    int top = baseTop;
+    if (lp.hasBase) {
+      int baseDx = baseLeft - lp.baseLeft;
+      int baseDy = baseTop - lp.baseTop;
+      left += child.getLeft() - lp.baseLeft;
+      top += child.getTop() - lp.baseTop;
+      // The drag distances move with the base
+      if ((baseDx != 0 || baseDy != 0) && lp.slot != DragStateTable.NO_SLOT) {
+        if (baseDx != 0 && dragStates.hasDistanceX(lp.slot)) {
+          dragStates.offsetDistanceX(lp.slot, baseDx);
         }
 
-        offset += childHeight;
-      } else {
-        child.layout(child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
+        if (baseDy != 0 && dragStates.hasDistanceY(lp.slot)) {
+          dragStates.offsetDistanceY(lp.slot, baseDy);
+        }
       }
     }
+
+    lp.hasBase = true;
+    lp.baseLeft = baseLeft;
+    lp.baseTop = baseTop;
+    int width = child.getMeasuredWidth();
+    int height = child.getMeasuredHeight();
+    if (child.isLayoutRequested() || width != child.getWidth() || height != child.getHeight()) {
+      child.layout(left, top, left + width, top + height);
+      return;
+    }
+
+    if (left != child.getLeft()) {
+      child.offsetLeftAndRight(left - child.getLeft());
+    }
+
+    if (top != child.getTop()) {
+      child.offsetTopAndBottom(top - child.getTop());
+    }
   }
 
   private void requestParentDisallowInterceptTouchEvent(boolean request) {
@@ -343,6 +729,38 @@ public class ViewDragLayout extends FrameLayout {
     }
   }
 
+  @Override public boolean dispatchTouchEvent(MotionEvent ev) {
+    // Sees every event of the gesture once, whether it's intercepted or not
+    if (inputResampler == null || !vdhEnable) {
+      return super.dispatchTouchEvent(ev);
+    }
+
+    inputResampler.addMovement(ev);
+    if (ev.getActionMasked() == MotionEvent.ACTION_MOVE) {
+      // Resampled once, so the intercept and the touch feed VDH the same positions
+      resampledSource = ev;
+      resampledMove = inputResampler.resample(ev);
+    }
+
+    try {
+      return super.dispatchTouchEvent(ev);
+    } finally {
+      if (resampledMove != null) {
+        resampledMove.recycle();
+        resampledMove = null;
+      }
+
+      resampledSource = null;
+    }
+  }
+
+  /**
+   * Returns the event VDH is fed with, the resampled move of the dispatched event if any.
+   */
+  private MotionEvent getDragEvent(MotionEvent event) {
+    return event == resampledSource && resampledMove != null ? resampledMove : event;
+  }
+
   @Override public boolean onInterceptTouchEvent(MotionEvent ev) {
     if (vdhEnable) {
       final int action = MotionEventCompat.getActionMasked(ev);
@@ -351,7 +769,12 @@ public class ViewDragLayout extends FrameLayout {
         return false;
       }
 
-      return viewDragHelper.shouldInterceptTouchEvent(ev);
+      boolean traced = DragTrace.begin(DragTrace.INTERCEPT);
+      try {
+        return viewDragHelper.shouldInterceptTouchEvent(getDragEvent(ev));
+      } finally {
+        DragTrace.end(traced);
+      }
     }
 
     return super.onInterceptTouchEvent(ev);
@@ -359,67 +782,177 @@ public class ViewDragLayout extends FrameLayout {
 
   @Override public boolean onTouchEvent(MotionEvent event) {
     if (vdhEnable) {
-      final int action = MotionEventCompat.getActionMasked(event);
-      switch (action) {
-        case MotionEvent.ACTION_DOWN:
-          dispatchingTime = System.currentTimeMillis() + pressTime;
+      boolean traced = DragTrace.begin(DragTrace.TOUCH);
+      try {
+        if (metrics == null) {
+          return dragTouchEvent(event);
+        }
+
+        long start = System.nanoTime();
+        boolean handled = dragTouchEvent(event);
+        metrics.recordEventTime(System.nanoTime() - start);
+        return handled;
+      } finally {
+        DragTrace.end(traced);
+      }
+    }
+
+    return super.onTouchEvent(event);
+  }
+
+  private boolean dragTouchEvent(MotionEvent event) {
+    final int action = MotionEventCompat.getActionMasked(event);
+    boolean swallowed = startMode == START_INTENT ? swallowBeforeIntent(event, action)
+        : swallowBeforePressTime(event, action);
+    if (swallowed) {
+      return true;
+    }
+
+    return vdhProcessTouchEvent(event);
+  }
+
+  /**
+   * Swallows the moves until the press time passed, the time is taken from the events.
+   *
+   * @return true if the event is swallowed
+   */
+  private boolean swallowBeforePressTime(MotionEvent event, int action) {
+    switch (action) {
+      case MotionEvent.ACTION_DOWN:
+        dispatchingTime = event.getDownTime() + pressTime;
+        break;
+
+      case MotionEvent.ACTION_MOVE:
+        if (event.getEventTime() >= dispatchingTime) {
+          requestParentDisallowInterceptTouchEvent(true);
           break;
+        } else {
+          return true;
+        }
 
-        case MotionEvent.ACTION_MOVE:
-          if (System.currentTimeMillis() >= dispatchingTime) {
+      case MotionEvent.ACTION_CANCEL:
+      case MotionEvent.ACTION_UP:
+        if (event.getEventTime() < dispatchingTime) {
+          performClick();
+        }
+
+        dispatchingTime = -1;
+        requestParentDisallowInterceptTouchEvent(false);
+        break;
+
+      default:
+        break;
+    }
+
+    return false;
+  }
+
+  /**
+   * Swallows the moves until the touch leaves the touch slop, the drag starts immediately if it
+   * goes in a direction the captured child can be dragged, otherwise the gesture is left to the
+   * parent.
+   *
+   * @return true if the event is swallowed
+   */
+  private boolean swallowBeforeIntent(MotionEvent event, int action) {
+    switch (action) {
+      case MotionEvent.ACTION_DOWN:
+        downX = event.getX();
+        downY = event.getY();
+        dragIntent = INTENT_UNKNOWN;
+        break;
+
+      case MotionEvent.ACTION_MOVE:
+        if (dragIntent == INTENT_UNKNOWN) {
+          dragIntent = resolveDragIntent(event.getX() - downX, event.getY() - downY);
+          if (dragIntent == INTENT_DRAG) {
             requestParentDisallowInterceptTouchEvent(true);
-            break;
-          } else {
-            return true;
           }
+        }
 
-        case MotionEvent.ACTION_CANCEL:
-        case MotionEvent.ACTION_UP:
-          if (System.currentTimeMillis() < dispatchingTime) {
-            performClick();
-          }
+        return dragIntent != INTENT_DRAG;
 
-          dispatchingTime = -1;
-          requestParentDisallowInterceptTouchEvent(false);
-          break;
+      case MotionEvent.ACTION_CANCEL:
+      case MotionEvent.ACTION_UP:
+        if (action == MotionEvent.ACTION_UP && dragIntent == INTENT_UNKNOWN) {
+          performClick();
+        }
 
-        default:
-          break;
-      }
+        dragIntent = INTENT_UNKNOWN;
+        requestParentDisallowInterceptTouchEvent(false);
+        break;
 
-      return vdhProcessTouchEvent(event);
+      default:
+        break;
     }
 
-    return super.onTouchEvent(event);
+    return false;
+  }
+
+  /**
+   * Resolves the intent of the touch from its distance to the down point.
+   *
+   * @param dx distance in x-axis
+   * @param dy distance in y-axis
+   * @return {@link #INTENT_UNKNOWN} while the touch is in the touch slop, {@link #INTENT_DRAG} if
+   * the captured child can be dragged in the direction, {@link #INTENT_NONE} otherwise
+   */
+  private int resolveDragIntent(float dx, float dy) {
+    float touchSlop = viewDragHelper.getTouchSlop();
+    float absX = Math.abs(dx);
+    float absY = Math.abs(dy);
+    if (absX <= touchSlop && absY <= touchSlop) {
+      return INTENT_UNKNOWN;
+    }
+
+    View child = viewDragHelper.getCapturedView();
+    if (child == null) {
+      child = viewDragHelper.findTopChildUnder((int) downX, (int) downY);
+    }
+
+    int slot = child != null ? getSlot(child) : DragStateTable.NO_SLOT;
+    if (slot == DragStateTable.NO_SLOT) {
+      return INTENT_NONE;
+    }
+
+    int direction;
+    if (absX >= absY) {
+      direction = dx < 0 ? LEFT : RIGHT;
+    } else {
+      direction = dy < 0 ? TOP : BOTTOM;
+    }
+
+    return (dragStates.getDragFlag(slot) & direction) != 0 ? INTENT_DRAG : INTENT_NONE;
   }
 
   private boolean vdhProcessTouchEvent(MotionEvent event) {
+    boolean move = event.getActionMasked() == MotionEvent.ACTION_MOVE;
     try {
-      viewDragHelper.processTouchEvent(event);
+      viewDragHelper.processTouchEvent(getDragEvent(event));
+      if (metrics != null && move) {
+        metrics.recordMoveEvent();
+      }
     } catch (Exception ex) {
       ex.printStackTrace();
+      if (metrics != null) {
+        metrics.recordSwallowedException();
+      }
+
       return false;
     }
 
     return true;
   }
 
-  @Override public void computeScroll() {
-    if (viewDragHelper.continueSettling(true)) {
-      ViewCompat.postInvalidateOnAnimation(this);
-    }
-  }
-
+  /**
+   * Finds the child with the given id, the index is maintained by {@link #onViewAdded(View)} and
+   * {@link #onViewRemoved(View)}, so the id must be assigned before the child is added.
+   *
+   * @param childId specific child id
+   * @return the child, or null if there is no such child
+   */
   private View getView(int childId) {
-    synchronized (childViews) {
-      for (View view : childViews) {
-        if (view.getId() == childId) {
-          return view;
-        }
-      }
-    }
-
-    return null;
+    return childIndex.get(childId);
   }
 
   public ViewDragHelper getViewDragHelper() {
@@ -445,10 +978,7 @@ public class ViewDragLayout extends FrameLayout {
   public void dragSpecificView(int childId, int x, int y) {
     View hoverView = getView(childId);
     if (hoverView != null) {
-      if (viewDragHelper.smoothSlideViewTo(hoverView, hoverView.getLeft() + x,
-          hoverView.getTop() + y)) {
-        ViewCompat.postInvalidateOnAnimation(this);
-      }
+      settleChildTo(hoverView, hoverView.getLeft() + x, hoverView.getTop() + y, 0, 0);
     }
   }
 
@@ -458,252 +988,974 @@ public class ViewDragLayout extends FrameLayout {
    * @param childId specific view id
    */
   public void resetSpecificView(int childId) {
-    View hoverView = getView(childId);
-    if (hoverView != null) {
-      Distance x = dragDistanceXs.get(childId);
-      Distance y = dragDistanceYs.get(childId);
-      int left = x != null ? x.getStartPoint() : hoverView.getLeft();
-      int top = y != null ? y.getStartPoint() : hoverView.getTop();
-      if (viewDragHelper.smoothSlideViewTo(hoverView, left, top)) {
-        ViewCompat.postInvalidateOnAnimation(this);
+    closeViews(null, childId);
+  }
+
+  /**
+   * Opens the children to the end of their distances in the direction, the children settle
+   * together on the same frames.
+   *
+   * @param direction {@link #LEFT} or {@link #RIGHT} for the distance x, {@link #TOP} or {@link
+   * #BOTTOM} for the distance y, the children stay on an axis without direction
+   * @param endAction called once when no child settles anymore, nullable
+   * @param childIds the children, all children if none
+   * @see #closeViews(Runnable, int...)
+   */
+  public void openViews(@DragFlag int direction, Runnable endAction, int... childIds) {
+    settleViews(direction, endAction, childIds);
+  }
+
+  /**
+   * Closes the children back to the start points of their distances, the children settle
+   * together on the same frames, e.g. to close all the revealed actions of a row.
+   *
+   * @param endAction called once when no child settles anymore, also when the layout is detached
+   * as the children are moved to their targets, it's dropped when a touch or {@link
+   * DragStatePool} cancels the settles, nullable
+   * @param childIds the children, all children if none
+   */
+  public void closeViews(Runnable endAction, int... childIds) {
+    settleViews(0, endAction, childIds);
+  }
+
+  /**
+   * Settles the children to the end of their distances in the direction, or to their start
+   * points without direction.
+   */
+  private void settleViews(int direction, Runnable endAction, int[] childIds) {
+    int count = childIds.length > 0 ? childIds.length : childViews.size();
+    for (int i = 0; i < count; i++) {
+      View child = childIds.length > 0 ? getView(childIds[i]) : childViews.get(i);
+      int slot = child != null ? getSlot(child) : DragStateTable.NO_SLOT;
+      if (slot == DragStateTable.NO_SLOT) {
+        continue;
+      }
+
+      int left = child.getLeft();
+      if (dragStates.hasDistanceX(slot)) {
+        left = settlePosition(direction, LEFT, RIGHT, dragStates.getStartX(slot),
+            dragStates.getMinX(slot), dragStates.getMaxX(slot));
+      }
+
+      int top = child.getTop();
+      if (dragStates.hasDistanceY(slot)) {
+        top = settlePosition(direction, TOP, BOTTOM, dragStates.getStartY(slot),
+            dragStates.getMinY(slot), dragStates.getMaxY(slot));
+      }
+
+      // The chain moves the other children with the settling one
+      if (settleChildTo(child, left, top, 0, 0) && chainEnable) {
+        break;
+      }
+    }
+
+    if (endAction != null) {
+      if (settleDriver.isSettling()) {
+        settleEndActions.add(endAction);
+      } else {
+        endAction.run();
       }
     }
   }
 
+  private static int settlePosition(int direction, int minFlag, int maxFlag, int start, int min,
+      int max) {
+    if ((direction & minFlag) != 0) {
+      return min;
+    }
+
+    return (direction & maxFlag) != 0 ? max : start;
+  }
+
   /**
-   * Sets view group layout type since we can't extends other layout
+   * Stops the settling children where they are, the end actions of the stopped settles are
+   * dropped as they never finish.
+   */
+  private void cancelSettles() {
+    settleDriver.cancelAll();
+    settleEndActions.clear();
+  }
+
+  /**
+   * Runs the end actions of the finished settles, an end action can start new settles.
+   */
+  private void runSettleEndActions() {
+    int size = settleEndActions.size();
+    if (size == 0) {
+      return;
+    }
+
+    Runnable[] endActions = settleEndActions.toArray(new Runnable[size]);
+    settleEndActions.clear();
+    for (Runnable endAction : endActions) {
+      endAction.run();
+    }
+  }
+
+  /**
+   * Settles the child to the position with the settle engine, only the settling children are moved
+   * on the frames, the layout itself is not invalidated.
    *
-   * @param layoutType layout type {@link #HOVER_FRAME_OVERLAY}, {@link #HOVER_LINEAR_HORIZONTAL},
-   * {@link
-   * #HOVER_LINEAR_VERTICAL}
+   * @param child the settling child
+   * @param left target left
+   * @param top target top
+   * @param xvel initial x velocity in pixels per second
+   * @param yvel initial y velocity in pixels per second
+   * @return true if the child is settling, false if it's already at the position
    */
-  private void setLayoutType(@HoverMode int layoutType) {
-    this.layoutType = layoutType;
+  private boolean settleChildTo(View child, int left, int top, float xvel, float yvel) {
+    int slot = getSlot(child);
+    if (slot != DragStateTable.NO_SLOT && settleDriver.start(child, slot, left, top, xvel, yvel)) {
+      promoteLayers(child);
+      progressDispatcher.invalidate();
+      if (metrics != null) {
+        metrics.recordSettleStarted();
+      }
+
+      return true;
+    }
+
+    return false;
   }
 
   /**
-   * Sets all child's drag direction flag
+   * Moves the other children with the moved child in chain mode.
    *
-   * @param dragDirectionFlag drag flag
+   * @param changedView the moved child
+   * @param dx moved distance in x-axis
+   * @param dy moved distance in y-axis
    */
-  private void setDragDirectionFlag(@DragFlag final int dragDirectionFlag) {
-    addOnLayoutChangeListener(new OnLayoutChangeListener() {
-      @Override
-      public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
-          int oldTop, int oldRight, int oldBottom) {
-        dragFlags.clear();
-        int size = childViews.size();
-        for (int i = 0; i < size; i++) {
-          int childId = childViews.get(i).getId();
-          dragFlags.put(childId, dragDirectionFlag);
+  private void onChildMoved(View changedView, int dx, int dy) {
+    progressDispatcher.invalidate();
+    if (!chainEnable) {
+      return;
+    }
+
+    boolean traced = DragTrace.begin(DragTrace.POSITION_CHANGED);
+    try {
+      switch (layoutType) {
+        case HOVER_FRAME_OVERLAY:
+          offsetOtherChildren(changedView, dx, dy);
+          break;
+
+        case HOVER_LINEAR_HORIZONTAL:
+          offsetOtherChildren(changedView, dx, 0);
+          break;
+
+        case HOVER_LINEAR_VERTICAL:
+          offsetOtherChildren(changedView, 0, dy);
+          break;
+
+        default:
+          break;
+      }
+    } finally {
+      DragTrace.end(traced);
+    }
+  }
+
+  private void offsetOtherChildren(View changedView, int dx, int dy) {
+    if (dx == 0 && dy == 0) {
+      return;
+    }
+
+    int size = childViews.size();
+    for (int i = 0; i < size; i++) {
+      View view = childViews.get(i);
+      if (view != changedView) {
+        if (dx != 0) {
+          view.offsetLeftAndRight(dx);
         }
 
-        removeOnLayoutChangeListener(this);
+        if (dy != 0) {
+          view.offsetTopAndBottom(dy);
+        }
       }
-    });
+    }
   }
 
   /**
-   * Sets specific child's drag direction flag
+   * Returns the drag state of the layout.
    *
-   * @param childId specific child id
-   * @param dragDirectionFlag drag flag
+   * @return {@link #STATE_DRAGGING} while a child is captured, {@link #STATE_SETTLING} while a
+   * child is settling, {@link #STATE_IDLE} otherwise
    */
-  private void setSpecificDragDirectionFlag(@IdRes final int childId,
-      @DragFlag final int dragDirectionFlag) {
-    addOnLayoutChangeListener(new OnLayoutChangeListener() {
-      @Override
-      public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
-          int oldTop, int oldRight, int oldBottom) {
-        View child = getView(childId);
-        if (child != null) {
-          dragFlags.put(childId, dragDirectionFlag);
-        }
+  public @DragState int getDragState() {
+    if (viewDragHelper != null
+        && viewDragHelper.getViewDragState() == ViewDragHelper.STATE_DRAGGING) {
+      return STATE_DRAGGING;
+    }
+
+    return settleDriver.isSettling() ? STATE_SETTLING : STATE_IDLE;
+  }
 
-        removeOnLayoutChangeListener(this);
+  /**
+   * Emits trace sections around measure, layout, touch handling, clamp, chain propagation and
+   * settle frames, they show up in systrace and Perfetto captures. The sections cost nothing when
+   * it's disabled.
+   *
+   * @param traceEnabled true enable, false otherwise
+   */
+  public static void setTraceEnabled(boolean traceEnabled) {
+    DragTrace.setEnabled(traceEnabled);
+  }
+
+  /**
+   * Applies the shared options of the spec to the drag states of the layout. The same spec is only
+   * applied once, so it's cheap to set it again on every bind of a recycled row. The options are
+   * kept when the spec is cleared.
+   *
+   * @param dragSpec the spec, nullable
+   * @throws IllegalArgumentException if the hooks of the spec make a cycle with the hooks of the
+   * layout
+   */
+  public void setDragSpec(DragSpec dragSpec) {
+    if (this.dragSpec == dragSpec) {
+      return;
+    }
+
+    if (dragSpec != null) {
+      applyConfig(dragSpec.resolve(getResources().getDisplayMetrics().density));
+    }
+
+    this.dragSpec = dragSpec;
+  }
+
+  public DragSpec getDragSpec() {
+    return dragSpec;
+  }
+
+  /**
+   * Returns the drag metrics, see {@link Builder#collectMetrics(boolean)}.
+   *
+   * @return the metrics, or null if they are not collected
+   */
+  public DragMetrics getDragMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Adds a listener of the drag progress, it's called at most once per frame.
+   *
+   * @param listener drag listener
+   */
+  public void addOnDragListener(OnDragListener listener) {
+    progressDispatcher.addListener(listener);
+  }
+
+  /**
+   * Removes the drag listener.
+   *
+   * @param listener drag listener
+   */
+  public void removeOnDragListener(OnDragListener listener) {
+    progressDispatcher.removeListener(listener);
+  }
+
+  /**
+   * Called when no child is dragged or settling.
+   */
+  private void onRest() {
+    layerPromoter.demoteAll();
+    if (openCoordinator != null) {
+      openCoordinator.onRest(this, isOpen());
+    }
+  }
+
+  /**
+   * Returns true if any child is off its start point.
+   */
+  private boolean isOpen() {
+    int size = childViews.size();
+    for (int i = 0; i < size; i++) {
+      View child = childViews.get(i);
+      int slot = getSlot(child);
+      if (slot == DragStateTable.NO_SLOT) {
+        continue;
       }
-    });
+
+      if (dragStates.hasDistanceX(slot) && child.getLeft() != dragStates.getStartX(slot)) {
+        return true;
+      }
+
+      if (dragStates.hasDistanceY(slot) && child.getTop() != dragStates.getStartY(slot)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns the child of the slot, or null if the slot is free.
+   */
+  View getSlotView(int slot) {
+    return slot < slotViews.length ? slotViews[slot] : null;
+  }
+
+  /**
+   * Returns the key of the {@link DragStatePool} the layout is bound to, or
+   * {@link DragStatePool#NO_KEY}.
+   */
+  long getPoolKey() {
+    return poolKey;
+  }
+
+  void setPoolKey(long poolKey) {
+    this.poolKey = poolKey;
+  }
+
+  /**
+   * Returns the {@link OpenRowCoordinator} the layout is registered with, or null.
+   */
+  OpenRowCoordinator getOpenCoordinator() {
+    return openCoordinator;
+  }
+
+  void setOpenCoordinator(OpenRowCoordinator openCoordinator) {
+    this.openCoordinator = openCoordinator;
+  }
+
+  /**
+   * Returns the size of the drag offsets array, two values per child.
+   */
+  int getDragOffsetSize() {
+    return childViews.size() * 2;
   }
 
   /**
-   * Sets all child's drag distance x
+   * Writes the drag offset of every child to the array, x and y from the child's start points in
+   * child order. A settling child is written at its target, the children are not moved.
    *
-   * @param leftX left distance
-   * @param rightX right distance
+   * @param out array of {@link #getDragOffsetSize()}
+   * @return true if any child is off its start point
    */
-  private void setDragX(final int leftX, final int rightX) {
-    addOnLayoutChangeListener(new OnLayoutChangeListener() {
-      @Override
-      public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
-          int oldTop, int oldRight, int oldBottom) {
-        dragDistanceXs.clear();
-        int size = childViews.size();
-        for (int i = 0; i < size; i++) {
-          View child = childViews.get(i);
-          // Only the child has drag flag can set drag x
-          int flag = dragFlags.get(child.getId());
-          if (flag > 0) {
-            dragDistanceXs.put(child.getId(), new Distance(child.getLeft(), leftX, rightX));
-          }
+  boolean getDragOffsets(int[] out) {
+    boolean dragged = false;
+    int size = childViews.size();
+    for (int i = 0; i < size; i++) {
+      View child = childViews.get(i);
+      int slot = getSlot(child);
+      int dx = 0;
+      int dy = 0;
+      if (slot != DragStateTable.NO_SLOT) {
+        boolean settling = settleDriver.isSettling(slot);
+        if (dragStates.hasDistanceX(slot)) {
+          int left = settling ? settleDriver.getTargetLeft(slot) : child.getLeft();
+          dx = left - dragStates.getStartX(slot);
         }
 
-        removeOnLayoutChangeListener(this);
+        if (dragStates.hasDistanceY(slot)) {
+          int top = settling ? settleDriver.getTargetTop(slot) : child.getTop();
+          dy = top - dragStates.getStartY(slot);
+        }
       }
-    });
+
+      out[i * 2] = dx;
+      out[i * 2 + 1] = dy;
+      dragged |= dx != 0 || dy != 0;
+    }
+
+    return dragged;
   }
 
   /**
-   * Sets specific child's drag distance x
+   * Moves the children to the drag offsets without animation, immediately if the layout is laid
+   * out, otherwise on the first layout.
    *
-   * @param childId specific child id
-   * @param leftX left distance
-   * @param rightX right distance
+   * @param offsets offsets from {@link #getDragOffsets(int[])}, null moves the children back to
+   * their start points
    */
-  private void setSpecificDragX(@IdRes final int childId, final int leftX, final int rightX) {
-    addOnLayoutChangeListener(new OnLayoutChangeListener() {
-      @Override
-      public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
-          int oldTop, int oldRight, int oldBottom) {
-        View child = getView(childId);
-        if (child != null) {
-          dragDistanceXs.put(childId, new Distance(child.getLeft(), leftX, rightX));
-        }
+  void setDragOffsets(int[] offsets) {
+    if (viewDragHelper != null) {
+      viewDragHelper.abort();
+    }
+
+    cancelSettles();
+
+    if (pendingConfig == null && ViewCompat.isLaidOut(this)) {
+      hasPendingOffsets = false;
+      applyDragOffsets(offsets);
+      onRest();
+      return;
+    }
+
+    layerPromoter.demoteAll();
 
-        removeOnLayoutChangeListener(this);
+    if (offsets == null) {
+      // The children are laid out at their start points
+      hasPendingOffsets = false;
+      return;
+    }
+
+    if (pendingOffsets == null || pendingOffsets.length < offsets.length) {
+      pendingOffsets = new int[offsets.length];
+    }
+
+    System.arraycopy(offsets, 0, pendingOffsets, 0, offsets.length);
+    if (offsets.length < pendingOffsets.length) {
+      Arrays.fill(pendingOffsets, offsets.length, pendingOffsets.length, 0);
+    }
+
+    hasPendingOffsets = true;
+    requestLayout();
+  }
+
+  private void applyDragOffsets(int[] offsets) {
+    int size = childViews.size();
+    for (int i = 0; i < size; i++) {
+      View child = childViews.get(i);
+      int slot = getSlot(child);
+      if (slot == DragStateTable.NO_SLOT) {
+        continue;
+      }
+
+      boolean hasOffset = offsets != null && i * 2 + 1 < offsets.length;
+      if (dragStates.hasDistanceX(slot)) {
+        int left = dragStates.getStartX(slot) + (hasOffset ? offsets[i * 2] : 0);
+        child.offsetLeftAndRight(left - child.getLeft());
       }
-    });
+
+      if (dragStates.hasDistanceY(slot)) {
+        int top = dragStates.getStartY(slot) + (hasOffset ? offsets[i * 2 + 1] : 0);
+        child.offsetTopAndBottom(top - child.getTop());
+      }
+    }
+
+    progressDispatcher.invalidate();
   }
 
   /**
-   * Sets all child's drag distance y
+   * Promotes the moving child to hardware layer, its hooked children and, in chain mode, the
+   * other children move with it. The layers are demoted when VDH goes back to idle and no child
+   * is settling.
    *
-   * @param topY top distance
-   * @param bottomY bottom distance
+   * @param child the captured or settling child
    */
-  private void setDragY(final int topY, final int bottomY) {
-    addOnLayoutChangeListener(new OnLayoutChangeListener() {
-      @Override
-      public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
-          int oldTop, int oldRight, int oldBottom) {
-        dragDistanceYs.clear();
-        int size = childViews.size();
-        for (int i = 0; i < size; i++) {
-          View child = childViews.get(i);
-          dragDistanceYs.put(child.getId(), new Distance(child.getTop(), topY, bottomY));
-        }
+  private void promoteLayers(View child) {
+    if (!layerPromotionEnable || child == null || !isHardwareAccelerated()) {
+      return;
+    }
 
-        removeOnLayoutChangeListener(this);
+    if (chainEnable) {
+      int size = childViews.size();
+      for (int i = 0; i < size; i++) {
+        layerPromoter.promote(childViews.get(i));
       }
-    });
+
+      return;
+    }
+
+    layerPromoter.promote(child);
+    int slot = getSlot(child);
+    if (slot != DragStateTable.NO_SLOT) {
+      int hookStart = hookGraph.getStart(slot);
+      int hookEnd = hookStart + hookGraph.getCount(slot);
+      for (int i = hookStart; i < hookEnd; i++) {
+        layerPromoter.promote(slotViews[hookGraph.getNode(i)]);
+      }
+    }
   }
 
   /**
-   * Sets specific child's drag distance y
+   * Moves the children hooked by the dragged slot, by levels in the compiled order of the hook
+   * graph. Each hooked child moves by its ratio of what the child it follows moved.
    *
-   * @param childId specific child id
-   * @param topY top distance
-   * @param bottomY bottom distance
+   * @param slot dragged slot
+   * @param delta delta the slot passes to its hooks, with its part below a pixel
+   * @param horizontal true for the x axis, false for the y axis
    */
-  private void setSpecificDragY(@IdRes final int childId, final int topY, final int bottomY) {
-    addOnLayoutChangeListener(new OnLayoutChangeListener() {
-      @Override
-      public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
-          int oldTop, int oldRight, int oldBottom) {
-        View child = getView(childId);
-        if (child != null) {
-          dragDistanceYs.put(childId, new Distance(child.getTop(), topY, bottomY));
+  private void offsetHooks(int slot, float delta, boolean horizontal) {
+    int hookStart = hookGraph.getStart(slot);
+    int hookEnd = hookStart + hookGraph.getCount(slot);
+    if (hookStart == hookEnd || delta == 0) {
+      return;
+    }
+
+    float[] moved = hookGraph.getMoved();
+    moved[slot] = delta;
+    boolean changed = false;
+    for (int i = hookStart; i < hookEnd; i++) {
+      int hookSlot = hookGraph.getNode(i);
+      float parentDelta = moved[hookGraph.getParent(i)];
+      View hooked = slotViews[hookSlot];
+      int offset;
+      if (horizontal) {
+        offset = DragPhysics.hookOffsetX(dragStates, hookSlot, hooked.getLeft(), parentDelta,
+            hookGraph.getRatioX(i));
+        if (offset != 0) {
+          hooked.offsetLeftAndRight(offset);
+        }
+      } else {
+        offset = DragPhysics.hookOffsetY(dragStates, hookSlot, hooked.getTop(), parentDelta,
+            hookGraph.getRatioY(i));
+        if (offset != 0) {
+          hooked.offsetTopAndBottom(offset);
         }
+      }
 
-        removeOnLayoutChangeListener(this);
+      moved[hookSlot] = offset;
+      changed |= offset != 0;
+    }
+
+    if (changed) {
+      progressDispatcher.invalidate();
+    }
+  }
+
+  /**
+   * Applies the options of the builder in one pass. The options of the layout are applied
+   * immediately, the options of the children need the children's positions, so they are applied
+   * immediately if the layout is already laid out, otherwise on the first layout.
+   *
+   * @param config builder options
+   */
+  private void applyConfig(DragConfig config) {
+    checkHooks(config);
+    boolean layoutTypeChanged = applyLayoutOptions(config);
+    if (pendingConfig != null) {
+      if (pendingConfig.shared) {
+        pendingConfig = copyOf(pendingConfig);
       }
-    });
+
+      pendingConfig.merge(config);
+    } else if (layoutTypeChanged || !ViewCompat.isLaidOut(this)) {
+      // The builder can still be changed, a shared config is copied when it's merged
+      pendingConfig = config.shared ? config : copyOf(config);
+    } else {
+      applyChildOptions(config);
+      return;
+    }
+
+    requestLayout();
+    invalidate();
+  }
+
+  private static DragConfig copyOf(DragConfig config) {
+    DragConfig copy = new DragConfig();
+    copy.merge(config);
+    return copy;
   }
 
   /**
-   * Sets edge tracking flag to drag specific child.
+   * Checks the hooks of the config together with the hooks which are set or pending, by child
+   * id, so a config which makes a cycle is rejected before it changes the drag states.
    *
-   * @param dragChildId specific child id
-   * @param edgeFlag tracking flag
+   * @param config builder options
+   * @throws IllegalArgumentException if the hooks make a cycle
    */
-  private void setSpecificDragEdgeFlag(@IdRes final int dragChildId, final int edgeFlag) {
-    this.edgeFlag = edgeFlag;
-    addOnLayoutChangeListener(new OnLayoutChangeListener() {
-      @Override
-      public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
-          int oldTop, int oldRight, int oldBottom) {
-        View child = getView(dragChildId);
-        if (child != null) {
-          edgeViews.put(dragChildId, edgeFlag);
-        }
+  private void checkHooks(DragConfig config) {
+    if (!hasHooks(config)) {
+      return;
+    }
+
+    SparseArray<int[]> hooks = new SparseArray<>();
+    int size = childViews.size();
+    for (int i = 0; i < size; i++) {
+      View child = childViews.get(i);
+      int[] hookIds = ((LayoutParams) child.getLayoutParams()).hookIds;
+      if (hookIds != null && child.getId() != NO_ID) {
+        hooks.put(child.getId(), hookIds);
+      }
+    }
+
+    putHooks(hooks, pendingConfig);
+    putHooks(hooks, config);
+    SparseIntArray visits = new SparseIntArray(hooks.size());
+    size = hooks.size();
+    for (int i = 0; i < size; i++) {
+      visitHooks(hooks, hooks.keyAt(i), visits);
+    }
+  }
+
+  private static boolean hasHooks(DragConfig config) {
+    int size = config.children.size();
+    for (int i = 0; i < size; i++) {
+      if ((config.children.valueAt(i).options & DragConfig.HOOKS) != 0) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static void putHooks(SparseArray<int[]> hooks, DragConfig config) {
+    if (config == null) {
+      return;
+    }
 
-        removeOnLayoutChangeListener(this);
+    int size = config.children.size();
+    for (int i = 0; i < size; i++) {
+      DragConfig.Child child = config.children.valueAt(i);
+      if ((child.options & DragConfig.HOOKS) != 0) {
+        hooks.put(config.children.keyAt(i), child.hookIds);
       }
-    });
+    }
   }
 
   /**
-   * Drag view as chain
+   * Depth first visit of the hooks of the id, an id reached again while its own hooks are being
+   * visited closes a cycle.
+   */
+  private static void visitHooks(SparseArray<int[]> hooks, int id, SparseIntArray visits) {
+    int visit = visits.get(id, HOOK_UNVISITED);
+    if (visit == HOOK_VISITED) {
+      return;
+    } else if (visit == HOOK_VISITING) {
+      throw new IllegalArgumentException("Hooks make a cycle.");
+    }
+
+    visits.put(id, HOOK_VISITING);
+    int[] hookIds = hooks.get(id);
+    if (hookIds != null) {
+      for (int hookId : hookIds) {
+        visitHooks(hooks, hookId, visits);
+      }
+    }
+
+    visits.put(id, HOOK_VISITED);
+  }
+
+  /**
+   * Applies the options of the layout.
    *
-   * @param chainEnable true enable, false otherwise.
+   * @param config builder options
+   * @return true if the layout type is changed
    */
-  private void asChain(boolean chainEnable) {
-    this.chainEnable = chainEnable;
+  private boolean applyLayoutOptions(DragConfig config) {
+    boolean layoutTypeChanged = false;
+    if (config.has(DragConfig.LAYOUT_TYPE) && config.layoutType != layoutType) {
+      layoutType = config.layoutType;
+      layoutTypeChanged = true;
+      invalidateMeasureCache();
+    }
+
+    if (config.has(DragConfig.CHAIN)) {
+      chainEnable = config.chainEnable;
+    }
+
+    if (config.has(DragConfig.PULL)) {
+      pullEnable = config.pullEnable;
+    }
+
+    if (config.has(DragConfig.SPEED_FACTOR)) {
+      speedFactor = config.speedFactor;
+    }
+
+    if (config.has(DragConfig.PRESS_TIME)) {
+      pressTime = config.pressTime;
+    }
+
+    if (config.has(DragConfig.START_MODE)) {
+      startMode = config.startMode;
+    }
+
+    if (config.has(DragConfig.INPUT_RESAMPLING)) {
+      setInputResamplingEnable(config.inputResamplingEnable);
+    }
+
+    if (config.has(DragConfig.METRICS)) {
+      if (!config.metricsEnable) {
+        metrics = null;
+      } else if (metrics == null) {
+        metrics = new DragMetrics();
+      }
+    }
+
+    if (config.has(DragConfig.EDGE_FLAG)) {
+      setEdgeFlag(config.edgeFlag);
+    }
+
+    if (config.has(DragConfig.SETTLE_ENGINE)) {
+      SettleEngine engine =
+          config.settleEngine != null ? config.settleEngine : DEFAULT_SETTLE_ENGINE;
+      if (engine != settleDriver.getEngine()) {
+        settleDriver.endAll();
+        settleDriver.setEngine(engine);
+      }
+    }
+
+    if (config.has(DragConfig.LAYER_PROMOTION)) {
+      layerPromotionEnable = config.layerPromotionEnable;
+      if (!layerPromotionEnable) {
+        layerPromoter.demoteAll();
+      }
+    }
+
+    return layoutTypeChanged;
   }
 
   /**
-   * Generate hook list that Target view hooks chain id
+   * Applies the options of the children, only the children whose options changed are updated.
    *
-   * @param targetId target view that owns hook
-   * @param hookId view which be hooked
+   * @param config builder options
    */
-  private void hookWithSpecificView(final int targetId, final int[] hookId) {
-    addOnLayoutChangeListener(new OnLayoutChangeListener() {
-      @Override
-      public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft,
-          int oldTop, int oldRight, int oldBottom) {
-        View child = getView(targetId);
+  private void applyChildOptions(DragConfig config) {
+    if (config.has(DragConfig.DRAG_FLAG | DragConfig.DRAG_X | DragConfig.DRAG_Y
+        | DragConfig.RESISTANCE)) {
+      int size = childViews.size();
+      for (int i = 0; i < size; i++) {
+        View child = childViews.get(i);
+        int childId = child.getId();
+        applyChildOptions(config, child, childId != NO_ID ? config.children.get(childId) : null);
+      }
+    } else {
+      // Only the specific children
+      int size = config.children.size();
+      for (int i = 0; i < size; i++) {
+        View child = getView(config.children.keyAt(i));
         if (child != null) {
-          List<View> hooks = new ArrayList<>();
-          for (int id : hookId) {
-            View view = getView(id);
-            if (view != null) {
-              hooks.add(view);
-            }
-          }
+          applyChildOptions(config, child, config.children.valueAt(i));
+        }
+      }
+    }
+
+    hookGraph.compile(dragStates);
+    updateResistanceCurves();
+  }
+
+  /**
+   * Builds the resistance curves of the children whose distance or size changed, the others
+   * keep theirs.
+   */
+  private void updateResistanceCurves() {
+    int size = childViews.size();
+    for (int i = 0; i < size; i++) {
+      View child = childViews.get(i);
+      LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      Resistance resistance = lp.resistance;
+      int slot = lp.slot;
+      if (resistance == null || slot == DragStateTable.NO_SLOT) {
+        lp.curveX = null;
+        lp.curveY = null;
+        continue;
+      }
+
+      lp.curveX = dragStates.hasDistanceX(slot)
+          ? resistance.curveX(dragStates, slot, child.getWidth(), lp.curveX) : null;
+      lp.curveY = dragStates.hasDistanceY(slot)
+          ? resistance.curveY(dragStates, slot, child.getHeight(), lp.curveY) : null;
+    }
+  }
+
+  /**
+   * Applies the options of the children's XML layout attributes, once per added child.
+   */
+  private void applyXmlChildOptions() {
+    int size = childViews.size();
+    for (int i = 0; i < size; i++) {
+      View child = childViews.get(i);
+      LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      DragConfig.Child options = lp.xmlOptions;
+      if (options == null || lp.xmlOptionsApplied) {
+        continue;
+      }
+
+      lp.xmlOptionsApplied = true;
+      applyChildOptions(NO_OPTIONS, child, options);
+      if ((options.options & DragConfig.EDGE_FLAG) != 0) {
+        // The edge tracking is shared by the children
+        setEdgeFlag(edgeFlag | options.edgeFlag);
+      }
+    }
+  }
+
+  private void applyChildOptions(DragConfig config, View child, DragConfig.Child specific) {
+    int slot = getSlot(child);
+    if (slot == DragStateTable.NO_SLOT) {
+      return;
+    }
+
+    int options = specific != null ? specific.options : 0;
+    // Drag flag
+    int flag = dragStates.getDragFlag(slot);
+    if ((options & DragConfig.DRAG_FLAG) != 0) {
+      flag = specific.dragFlag;
+    } else if (config.has(DragConfig.DRAG_FLAG)) {
+      flag = config.dragFlag;
+    }
+
+    boolean flagChanged = flag != dragStates.getDragFlag(slot);
+    if (flagChanged) {
+      dragStates.setDragFlag(slot, flag);
+    }
+
+    // Drag x, only the child has drag flag can set drag x for all children
+    if ((options & DragConfig.DRAG_X) != 0) {
+      updateDistanceX(child, slot, specific.leftX, specific.rightX, specific.anchorsX);
+    } else if (config.has(DragConfig.DRAG_X)) {
+      if (flag > 0) {
+        updateDistanceX(child, slot, config.leftX, config.rightX, config.anchorsX);
+      } else {
+        dragStates.clearDistanceX(slot);
+      }
+    }
+
+    // Drag y
+    if ((options & DragConfig.DRAG_Y) != 0) {
+      updateDistanceY(child, slot, specific.topY, specific.bottomY, specific.anchorsY);
+    } else if (config.has(DragConfig.DRAG_Y)) {
+      updateDistanceY(child, slot, config.topY, config.bottomY, config.anchorsY);
+    }
+
+    // Resistance
+    if ((options & DragConfig.RESISTANCE) != 0) {
+      ((LayoutParams) child.getLayoutParams()).resistance = specific.resistance;
+    } else if (config.has(DragConfig.RESISTANCE)) {
+      ((LayoutParams) child.getLayoutParams()).resistance = config.resistance;
+    }
+
+    // Edge
+    if ((options & DragConfig.EDGE_FLAG) != 0) {
+      dragStates.setEdgeFlag(slot, specific.edgeFlag);
+    }
+
+    // Hooks, the flag ratios are resolved again when the flag changes
+    LayoutParams lp = (LayoutParams) child.getLayoutParams();
+    if ((options & DragConfig.HOOKS) != 0) {
+      lp.hookIds = specific.hookIds;
+      lp.hookRatiosX = specific.hookRatiosX;
+      lp.hookRatiosY = specific.hookRatiosY;
+      updateHooks(slot, lp.hookIds, lp.hookRatiosX, lp.hookRatiosY);
+    } else if (flagChanged && lp.hookIds != null) {
+      updateHooks(slot, lp.hookIds, lp.hookRatiosX, lp.hookRatiosY);
+    }
+  }
+
+  /**
+   * Updates the drag distance x of the child, the start point of a configured child is kept since
+   * it may be dragged already.
+   */
+  private void updateDistanceX(View child, int slot, int leftX, int rightX, int[] anchorsX) {
+    int start = dragStates.hasDistanceX(slot) ? dragStates.getStartX(slot) : child.getLeft();
+    Distance distance = new Distance(start, leftX, rightX, anchorsX);
+    if (!dragStates.isDistanceX(slot, distance)) {
+      dragStates.setDistanceX(slot, distance);
+    }
+  }
+
+  /**
+   * Updates the drag distance y of the child, the start point of a configured child is kept since
+   * it may be dragged already.
+   */
+  private void updateDistanceY(View child, int slot, int topY, int bottomY, int[] anchorsY) {
+    int start = dragStates.hasDistanceY(slot) ? dragStates.getStartY(slot) : child.getTop();
+    Distance distance = new Distance(start, topY, bottomY, anchorsY);
+    if (!dragStates.isDistanceY(slot, distance)) {
+      dragStates.setDistanceY(slot, distance);
+    }
+  }
+
+  /**
+   * Generate hook list that target slot hooks the ids
+   *
+   * @param slot target slot that owns hook
+   * @param hookIds views which be hooked
+   * @param hookRatiosX x ratios of the hooks, null or {@link DragConfig#FLAG_RATIO} to follow the
+   * drag flag
+   * @param hookRatiosY y ratios of the hooks, null or {@link DragConfig#FLAG_RATIO} for 1
+   */
+  private void updateHooks(int slot, int[] hookIds, float[] hookRatiosX, float[] hookRatiosY) {
+    // The hooks of a target which only drags right always moved opposite to it
+    float flagRatioX = (dragStates.getDragFlag(slot) & (LEFT | RIGHT)) == RIGHT ? -1 : 1;
+    int length = hookIds.length;
+    int[] hookSlots = new int[length];
+    float[] ratiosX = new float[length];
+    float[] ratiosY = new float[length];
+    int count = 0;
+    for (int i = 0; i < length; i++) {
+      View view = getView(hookIds[i]);
+      int hookSlot = view != null ? getSlot(view) : DragStateTable.NO_SLOT;
+      if (hookSlot != DragStateTable.NO_SLOT) {
+        hookSlots[count] = hookSlot;
+        ratiosX[count] = ratio(hookRatiosX, i, flagRatioX);
+        ratiosY[count] = ratio(hookRatiosY, i, 1);
+        count++;
+      }
+    }
 
-          hookList.put(targetId, hooks);
-        }
+    if (count == dragStates.getHookCount(slot)) {
+      int start = dragStates.getHookStart(slot);
+      int index = 0;
+      while (index < count
+          && dragStates.getHook(start + index) == hookSlots[index]
+          && dragStates.getHookRatioX(start + index) == ratiosX[index]
+          && dragStates.getHookRatioY(start + index) == ratiosY[index]) {
+        index++;
+      }
 
-        removeOnLayoutChangeListener(this);
+      if (index == count) {
+        return;
       }
-    });
+    }
+
+    dragStates.setHooks(slot, hookSlots, ratiosX, ratiosY, count);
   }
 
-  /**
-   * Enable the pull action
-   *
-   * @param pullEnable true enable, false disable
-   */
-  private void asPull(boolean pullEnable) {
-    this.pullEnable = pullEnable;
+  private static float ratio(float[] ratios, int index, float flagRatio) {
+    if (ratios == null || Float.isNaN(ratios[index])) {
+      return flagRatio;
+    }
+
+    return ratios[index];
+  }
+
+  private void setInputResamplingEnable(boolean enable) {
+    if (enable && inputResampler == null) {
+      ViewConfiguration configuration = ViewConfiguration.get(getContext());
+      inputResampler = new InputResampler(configuration.getScaledMaximumFlingVelocity());
+    } else if (!enable && inputResampler != null) {
+      inputResampler.release();
+      inputResampler = null;
+    }
   }
 
   /**
-   * Sets the factor of speed
+   * Sets edge tracking flag, only pushes it to VDH when it changes
    *
-   * @param speedFactor factor that directly proportional to speed
+   * @param edgeFlag tracking flag
    */
-  private void setSpeedFactor(float speedFactor) {
-    this.speedFactor = speedFactor;
+  private void setEdgeFlag(int edgeFlag) {
+    if (this.edgeFlag == edgeFlag) {
+      return;
+    }
+
+    this.edgeFlag = edgeFlag;
+    if (viewDragHelper != null) {
+      viewDragHelper.setEdgeTrackingEnabled(edgeFlag);
+    }
   }
 
   /**
-   * Sets the press time that trigger drag
-   *
-   * @param pressTime press time
+   * Drag progress callback, see {@link #addOnDragListener(OnDragListener)}
    */
-  private void setPressTime(long pressTime) {
-    this.pressTime = pressTime;
+  public interface OnDragListener {
+
+    /**
+     * Called when the child moves, at most once per frame.
+     *
+     * @param child the moved child
+     * @param fractionX position in its distance x, 0 at the min and 1 at the max, 0 if the child
+     * has no distance x
+     * @param fractionY position in its distance y, 0 at the min and 1 at the max, 0 if the child
+     * has no distance y
+     */
+    void onDragProgress(View child, float fractionX, float fractionY);
+
+    /**
+     * Called when the drag state of the layout changes.
+     *
+     * @param state {@link #STATE_IDLE}, {@link #STATE_DRAGGING} or {@link #STATE_SETTLING}
+     */
+    void onDragStateChanged(@DragState int state);
+
+    /**
+     * Called when the child comes to rest off its start point, or back at it.
+     *
+     * @param child the child
+     * @param open true if it's off its start point
+     */
+    void onOpenChanged(View child, boolean open);
   }
 
   /**
@@ -719,143 +1971,116 @@ public class ViewDragLayout extends FrameLayout {
     }
 
     @Override public void onEdgeDragStarted(int edgeFlags, int pointerId) {
-      int size = instance.edgeViews.size();
-      for (int i = 0; i < size; i++) {
-        if (instance.edgeViews.valueAt(i) == edgeFlags) {
-          int childId = instance.edgeViews.keyAt(i);
-          View edgeChild = instance.getView(childId);
-          if (edgeChild != null) {
-            instance.viewDragHelper.captureChildView(edgeChild, pointerId);
-          }
+      DragStateTable states = instance.dragStates;
+      int size = states.size();
+      for (int slot = 0; slot < size; slot++) {
+        if (states.isInUse(slot) && states.getEdgeFlag(slot) == edgeFlags) {
+          instance.viewDragHelper.captureChildView(instance.slotViews[slot], pointerId);
         }
       }
     }
 
-    @Override public boolean tryCaptureView(View child, int pointerId) {
-      int flag = instance.dragFlags.get(child.getId());
-      return flag > 0;
-    }
-
-    @Override public int clampViewPositionHorizontal(View child, int left, int dx) {
-      int flag = instance.dragFlags.get(child.getId()) & (LEFT | RIGHT);
-      Distance distanceX = instance.dragDistanceXs.get(child.getId());
-      List<View> hooks = instance.hookList.get(child.getId());
-      int adjustedDx = (int) (dx * instance.speedFactor);
-      switch (flag) {
-        case LEFT:
-          if (dx < 0) {
-            if (hooks != null) {
-              for (View hooked : hooks) {
-                Distance hookX = instance.dragDistanceXs.get(hooked.getId());
-                if (hookX != null) {
-                  if (hooked.getLeft() + adjustedDx >= hookX.getMin()) {
-                    hooked.offsetLeftAndRight(adjustedDx);
-                  }
-                }
-              }
-            }
-
-            if (distanceX != null) {
-              if (left >= distanceX.getMin()) {
-                return child.getLeft() + adjustedDx;
-              }
-            }
-          }
-
-          break;
-
-        case RIGHT:
-          if (dx > 0) {
-            if (hooks != null) {
-              for (View hooked : hooks) {
-                Distance hookX = instance.dragDistanceXs.get(hooked.getId());
-                if (hookX != null) {
-                  if (hooked.getLeft() - adjustedDx <= hookX.getMax()) {
-                    hooked.offsetLeftAndRight(-adjustedDx);
-                  }
-                }
-              }
-            }
-
-            if (distanceX != null) {
-              if (left <= distanceX.getMax()) {
-                return child.getLeft() + adjustedDx;
-              }
-            }
-          }
+    @Override public void onViewCaptured(View capturedChild, int activePointerId) {
+      // The touch takes over the settling children, they rest when it's released
+      instance.cancelSettles();
+      int slot = getSlot(capturedChild);
+      if (slot != DragStateTable.NO_SLOT) {
+        // The hooks carry their own remainders of the drag
+        HookGraph hookGraph = instance.hookGraph;
+        int hookStart = hookGraph.getStart(slot);
+        int hookEnd = hookStart + hookGraph.getCount(slot);
+        for (int i = hookStart; i < hookEnd; i++) {
+          instance.dragStates.clearCarry(hookGraph.getNode(i));
+        }
 
-          break;
+        instance.dragStates.clearCarry(slot);
+      }
 
-        case (LEFT | RIGHT):
-          if (hooks != null) {
-            for (View hooked : hooks) {
-              Distance hookX = instance.dragDistanceXs.get(hooked.getId());
-              if (hookX != null) {
-                if (hooked.getLeft() + adjustedDx >= hookX.getMin()) {
-                  hooked.offsetLeftAndRight(adjustedDx);
-                } else if (hooked.getLeft() - adjustedDx <= hookX.getMax()) {
-                  hooked.offsetLeftAndRight(-adjustedDx);
-                }
-              }
-            }
-          }
+      if (instance.metrics != null) {
+        instance.metrics.recordCapture();
+      }
+    }
 
-          if (distanceX != null) {
-            if (left >= distanceX.getMin() && left <= distanceX.getMax()) {
-              return child.getLeft() + adjustedDx;
-            }
-          }
+    @Override public void onViewDragStateChanged(int state) {
+      instance.progressDispatcher.invalidate();
+      if (state == ViewDragHelper.STATE_IDLE) {
+        if (!instance.settleDriver.isSettling()) {
+          instance.onRest();
+        }
+      } else {
+        instance.promoteLayers(instance.viewDragHelper.getCapturedView());
+      }
+    }
 
-          break;
+    @Override public boolean tryCaptureView(View child, int pointerId) {
+      int slot = getSlot(child);
+      if (slot == DragStateTable.NO_SLOT || instance.dragStates.getDragFlag(slot) <= 0) {
+        return false;
+      }
 
-        default:
-          break;
+      if (instance.openCoordinator != null) {
+        instance.openCoordinator.onCapture(instance);
       }
 
-      return (int) child.getX();
+      return true;
     }
 
-    @Override public int clampViewPositionVertical(View child, int top, int dy) {
-      int flag = instance.dragFlags.get(child.getId()) & (TOP | BOTTOM);
-      Distance distanceY = instance.dragDistanceYs.get(child.getId());
-      int adjustedDy = (int) (dy * instance.speedFactor);
-      switch (flag) {
-        case TOP:
-          if (dy < 0) {
-            if (distanceY != null) {
-              if (top >= distanceY.getMin()) {
-                return child.getTop() + adjustedDy;
-              }
-            }
-          }
+    @Override public int clampViewPositionHorizontal(View child, int left, int dx) {
+      boolean traced = DragTrace.begin(DragTrace.CLAMP_HORIZONTAL);
+      try {
+        return clampHorizontal(child, left, dx);
+      } finally {
+        DragTrace.end(traced);
+      }
+    }
 
-          break;
+    private int clampHorizontal(View child, int left, int dx) {
+      int slot = getSlot(child);
+      if (slot == DragStateTable.NO_SLOT) {
+        return child.getLeft();
+      }
 
-        case BOTTOM:
-          if (dy > 0) {
-            if (distanceY != null) {
-              if (top <= distanceY.getMax()) {
-                return child.getTop() + adjustedDy;
-              }
-            }
-          }
+      DragStateTable states = instance.dragStates;
+      float speedFactor = instance.speedFactor;
+      instance.offsetHooks(slot, DragPhysics.hookDeltaX(states, slot, dx, speedFactor), true);
+      int current = child.getLeft();
+      ResistanceCurve curve = ((LayoutParams) child.getLayoutParams()).curveX;
+      int clamped = DragPhysics.clampHorizontal(states, slot, current, dx, speedFactor, curve);
+      if (instance.metrics != null && DragPhysics.adjust(dx, speedFactor) != 0
+          && clamped == current) {
+        instance.metrics.recordClampHit();
+      }
 
-          break;
+      return clamped;
+    }
 
-        case (TOP | BOTTOM):
-          if (distanceY != null) {
-            if (top >= distanceY.getMin() && top <= distanceY.getMax()) {
-              return child.getTop() + adjustedDy;
-            }
-          }
+    @Override public int clampViewPositionVertical(View child, int top, int dy) {
+      boolean traced = DragTrace.begin(DragTrace.CLAMP_VERTICAL);
+      try {
+        return clampVertical(child, top, dy);
+      } finally {
+        DragTrace.end(traced);
+      }
+    }
 
-          break;
+    private int clampVertical(View child, int top, int dy) {
+      int slot = getSlot(child);
+      if (slot == DragStateTable.NO_SLOT) {
+        return child.getTop();
+      }
 
-        default:
-          break;
+      DragStateTable states = instance.dragStates;
+      float speedFactor = instance.speedFactor;
+      instance.offsetHooks(slot, DragPhysics.hookDeltaY(states, slot, dy, speedFactor), false);
+      int current = child.getTop();
+      ResistanceCurve curve = ((LayoutParams) child.getLayoutParams()).curveY;
+      int clamped = DragPhysics.clampVertical(states, slot, current, dy, speedFactor, curve);
+      if (instance.metrics != null && DragPhysics.adjust(dy, speedFactor) != 0
+          && clamped == current) {
+        instance.metrics.recordClampHit();
       }
 
-      return (int) child.getY();
+      return clamped;
     }
 
     @Override public int getViewVerticalDragRange(View child) {
@@ -864,52 +2089,18 @@ public class ViewDragLayout extends FrameLayout {
 
     @Override
     public void onViewPositionChanged(View changedView, int left, int top, int dx, int dy) {
-      if (instance.chainEnable) {
-        switch (instance.layoutType) {
-          case HOVER_FRAME_OVERLAY:
-            onHorizontalViewPositionChanged(changedView, dx);
-            onVerticalViewPositionChanged(changedView, dy);
-            break;
-
-          case HOVER_LINEAR_HORIZONTAL:
-            onHorizontalViewPositionChanged(changedView, dx);
-            break;
-
-          case HOVER_LINEAR_VERTICAL:
-            onVerticalViewPositionChanged(changedView, dy);
-            break;
-
-          default:
-            break;
-        }
-      }
-    }
-
-    private void onHorizontalViewPositionChanged(View changedView, int dx) {
-      int size = instance.childViews.size();
-      for (int i = 0; i < size; i++) {
-        View view = instance.childViews.get(i);
-        if (!view.equals(changedView)) {
-          view.offsetLeftAndRight(dx);
-        }
-      }
-
-      ViewCompat.postInvalidateOnAnimation(instance);
+      instance.onChildMoved(changedView, dx, dy);
     }
 
-    private void onVerticalViewPositionChanged(View changedView, int dy) {
-      int size = instance.childViews.size();
-      for (int i = 0; i < size; i++) {
-        View view = instance.childViews.get(i);
-        if (!view.equals(changedView)) {
-          view.offsetTopAndBottom(dy);
-        }
+    @Override public void onViewReleased(View releasedChild, float xvel, float yvel) {
+      InputResampler resampler = instance.inputResampler;
+      if (resampler != null) {
+        // Estimated from all the batched samples instead of the resampled ones
+        int pointerId = instance.viewDragHelper.getActivePointerId();
+        xvel = resampler.getXVelocity(pointerId);
+        yvel = resampler.getYVelocity(pointerId);
       }
 
-      ViewCompat.postInvalidateOnAnimation(instance);
-    }
-
-    @Override public void onViewReleased(View releasedChild, float xvel, float yvel) {
       switch (instance.layoutType) {
         case HOVER_FRAME_OVERLAY:
           if (instance.pullEnable) {
@@ -934,91 +2125,224 @@ public class ViewDragLayout extends FrameLayout {
     }
 
     private void pulledAnimation(View releasedChild) {
-      Distance x = instance.dragDistanceXs.get(releasedChild.getId());
-      Distance y = instance.dragDistanceYs.get(releasedChild.getId());
-      int left = x == null ? releasedChild.getLeft() : x.getMin();
-      int top = y == null ? releasedChild.getTop() : y.getMin();
-      if (instance.viewDragHelper.smoothSlideViewTo(releasedChild, left, top)) {
-        ViewCompat.postInvalidateOnAnimation(instance);
-      }
+      int slot = getSlot(releasedChild);
+      DragStateTable states = instance.dragStates;
+      int left = DragPhysics.pullX(states, slot, releasedChild.getLeft());
+      int top = DragPhysics.pullY(states, slot, releasedChild.getTop());
+      instance.settleChildTo(releasedChild, left, top, 0, 0);
     }
 
     private void releasedAnimation(View releasedChild, float xvel, float yvel) {
-      int left = releasedChild.getLeft();
-      int top = releasedChild.getTop();
-      Distance x = instance.dragDistanceXs.get(releasedChild.getId());
-      if (x != null) {
-        int distanceThreshold = x.getMax() + x.getMin() / 2;
-        if (xvel < -VELOCITY_THRESHOLD || releasedChild.getLeft() < distanceThreshold) {
-          left = x.getMin();
-        } else if (xvel > VELOCITY_THRESHOLD || releasedChild.getLeft() > distanceThreshold) {
-          left = x.getMax();
-        }
-      }
+      int slot = getSlot(releasedChild);
+      DragStateTable states = instance.dragStates;
+      int left = DragPhysics.releaseX(states, slot, releasedChild.getLeft(), xvel,
+          instance.velocityThreshold);
+      int top = DragPhysics.releaseY(states, slot, releasedChild.getTop(), yvel,
+          instance.velocityThreshold);
+      instance.settleChildTo(releasedChild, left, top, xvel, yvel);
+      settleHooks(slot, xvel, yvel);
+    }
 
-      Distance y = instance.dragDistanceYs.get(releasedChild.getId());
-      if (y != null) {
-        top = yvel < 0 ? y.getMin() : y.getMax();
+    private void releasedHorizontalAnimation(View releasedChild, float xvel) {
+      int slot = getSlot(releasedChild);
+      DragStateTable states = instance.dragStates;
+      if (states.hasDistanceX(slot)) {
+        int left = DragPhysics.releaseX(states, slot, releasedChild.getLeft(), xvel,
+            instance.velocityThreshold);
+        instance.settleChildTo(releasedChild, left, releasedChild.getTop(), xvel, 0);
       }
 
-      if (instance.viewDragHelper.smoothSlideViewTo(releasedChild, left, top)) {
-        ViewCompat.postInvalidateOnAnimation(instance);
+      settleHooks(slot, xvel, 0);
+    }
+
+    private void releasedVerticalAnimation(View releasedChild, float yvel) {
+      int slot = getSlot(releasedChild);
+      DragStateTable states = instance.dragStates;
+      if (states.hasDistanceY(slot)) {
+        int top = DragPhysics.releaseY(states, slot, releasedChild.getTop(), yvel,
+            instance.velocityThreshold);
+        instance.settleChildTo(releasedChild, releasedChild.getLeft(), top, 0, yvel);
       }
+
+      settleHooks(slot, 0, yvel);
     }
 
-    private void releasedHorizontalAnimation(View releasedChild, float xvel) {
-      Distance x = instance.dragDistanceXs.get(releasedChild.getId());
-      int left = releasedChild.getLeft();
-      if (x != null) {
-        int distanceThreshold = (x.getMax() + x.getMin()) / 2;
-        if (xvel < -VELOCITY_THRESHOLD || releasedChild.getLeft() <= distanceThreshold) {
-          left = x.getMin();
-        } else if (xvel > VELOCITY_THRESHOLD || releasedChild.getLeft() > distanceThreshold) {
-          left = x.getMax();
+    /**
+     * Settles the children hooked by the released slot, by levels, each with the release
+     * velocity scaled by its ratios.
+     */
+    private void settleHooks(int slot, float xvel, float yvel) {
+      DragStateTable states = instance.dragStates;
+      HookGraph graph = instance.hookGraph;
+      int hookStart = graph.getStart(slot);
+      int hookEnd = hookStart + graph.getCount(slot);
+      for (int i = hookStart; i < hookEnd; i++) {
+        int hookSlot = graph.getNode(i);
+        View hooked = instance.slotViews[hookSlot];
+        float hookedXvel = xvel * graph.getTotalRatioX(i);
+        float hookedYvel = yvel * graph.getTotalRatioY(i);
+        int left = hooked.getLeft();
+        int top = hooked.getTop();
+        if (states.hasDistanceX(hookSlot)) {
+          left = DragPhysics.releaseX(states, hookSlot, left, hookedXvel,
+              instance.velocityThreshold);
         }
 
-        if (instance.viewDragHelper.smoothSlideViewTo(releasedChild, left,
-            releasedChild.getTop())) {
-          ViewCompat.postInvalidateOnAnimation(instance);
+        if (states.hasDistanceY(hookSlot)) {
+          top = DragPhysics.releaseY(states, hookSlot, top, hookedYvel,
+              instance.velocityThreshold);
         }
+
+        instance.settleChildTo(hooked, left, top, hookedXvel, hookedYvel);
       }
+    }
+  }
 
-      List<View> hooks = instance.hookList.get(releasedChild.getId());
-      if (hooks != null) {
-        for (View hooked : hooks) {
-          int hookedLeft = hooked.getLeft();
-          Distance hookedX = instance.dragDistanceXs.get(hooked.getId());
-          if (hookedX != null) {
-            int distanceThreshold = (hookedX.getMax() + hookedX.getMin()) / 2;
-            if (xvel < -VELOCITY_THRESHOLD || hooked.getLeft() <= distanceThreshold) {
-              hookedLeft = hookedX.getMin();
-            } else if (xvel > VELOCITY_THRESHOLD || hooked.getLeft() > distanceThreshold) {
-              hookedLeft = hookedX.getMax();
-            }
-
-            if (instance.viewDragHelper.smoothSlideViewTo(hooked, hookedLeft, hooked.getTop())) {
-              ViewCompat.postInvalidateOnAnimation(instance);
-            }
-          }
-        }
+  /**
+   * Settle engine callback
+   */
+  private static class SettleListener implements SettleDriver.Listener {
+
+    private final ViewDragLayout instance;
+
+    SettleListener(ViewDragLayout reference) {
+      WeakReference<ViewDragLayout> weakReference = new WeakReference<>(reference);
+      instance = weakReference.get();
+    }
+
+    @Override public void onSettleMoved(View child, int dx, int dy) {
+      instance.onChildMoved(child, dx, dy);
+    }
+
+    @Override public void onSettleCompleted(View child, int frames) {
+      if (instance.metrics != null) {
+        instance.metrics.recordSettleCompleted(frames);
       }
     }
 
-    private void releasedVerticalAnimation(View releasedChild, float yvel) {
-      Distance y = instance.dragDistanceYs.get(releasedChild.getId());
-      if (y != null) {
-        int top = yvel < 0 ? y.getMin() : y.getMax();
-        if (instance.viewDragHelper.smoothSlideViewTo(releasedChild, releasedChild.getLeft(),
-            top)) {
-          ViewCompat.postInvalidateOnAnimation(instance);
-        }
+    @Override public void onSettleFinished() {
+      instance.progressDispatcher.invalidate();
+      ViewDragHelper helper = instance.viewDragHelper;
+      if (helper == null || helper.getViewDragState() == ViewDragHelper.STATE_IDLE) {
+        instance.onRest();
+      }
+
+      instance.runSettleEndActions();
+    }
+  }
+
+  /**
+   * Per-child layout information, it also carries the child's drag state slot
+   */
+  public static class LayoutParams extends FrameLayout.LayoutParams {
+
+    int slot = DragStateTable.NO_SLOT;
+    /**
+     * Position of the last layout without drag offset
+     */
+    boolean hasBase;
+    int baseLeft;
+    int baseTop;
+    /**
+     * Drag resistance and its curves over the current distances
+     */
+    Resistance resistance;
+    ResistanceCurve curveX;
+    ResistanceCurve curveY;
+
+    /**
+     * Options of the child's XML layout attributes and whether they are applied to the slot
+     */
+    DragConfig.Child xmlOptions;
+    boolean xmlOptionsApplied;
+    /**
+     * Hooks of the child as configured, their flag ratios follow its drag flag
+     */
+    int[] hookIds;
+    float[] hookRatiosX;
+    float[] hookRatiosY;
+
+    public LayoutParams(Context c, AttributeSet attrs) {
+      super(c, attrs);
+      xmlOptions = DragConfig.childFromAttributes(c, attrs);
+    }
+
+    public LayoutParams(int width, int height) {
+      super(width, height);
+    }
+
+    public LayoutParams(int width, int height, int gravity) {
+      super(width, height, gravity);
+    }
+
+    public LayoutParams(ViewGroup.LayoutParams source) {
+      super(source);
+    }
+
+    public LayoutParams(MarginLayoutParams source) {
+      super(source);
+    }
+
+    public LayoutParams(FrameLayout.LayoutParams source) {
+      super((MarginLayoutParams) source);
+      gravity = source.gravity;
+      if (source instanceof LayoutParams) {
+        xmlOptions = ((LayoutParams) source).xmlOptions;
       }
     }
   }
 
+  /**
+   * Drag offsets and open status of the children which have ids
+   */
+  static class SavedState extends AbsSavedState {
+
+    static final int OPEN_MIN_X = 1;
+    static final int OPEN_MAX_X = 1 << 1;
+    static final int OPEN_MIN_Y = 1 << 2;
+    static final int OPEN_MAX_Y = 1 << 3;
+
+    int[] childIds;
+    int[] offsets;
+    int[] openFlags;
+
+    SavedState(Parcelable superState) {
+      super(superState);
+    }
+
+    SavedState(Parcel source, ClassLoader loader) {
+      super(source, loader);
+      childIds = source.createIntArray();
+      offsets = source.createIntArray();
+      openFlags = source.createIntArray();
+    }
+
+    @Override public void writeToParcel(Parcel dest, int flags) {
+      super.writeToParcel(dest, flags);
+      dest.writeIntArray(childIds);
+      dest.writeIntArray(offsets);
+      dest.writeIntArray(openFlags);
+    }
+
+    public static final Creator<SavedState> CREATOR = new ClassLoaderCreator<SavedState>() {
+      @Override public SavedState createFromParcel(Parcel source, ClassLoader loader) {
+        return new SavedState(source, loader);
+      }
+
+      @Override public SavedState createFromParcel(Parcel source) {
+        return new SavedState(source, null);
+      }
+
+      @Override public SavedState[] newArray(int size) {
+        return new SavedState[size];
+      }
+    };
+  }
+
   public static final class Builder {
 
     private final ViewDragLayout instance;
+    private final DragConfig config = new DragConfig();
 
     public Builder(ViewDragLayout reference) {
       WeakReference<ViewDragLayout> weakReference = new WeakReference<>(reference);
@@ -1034,7 +2358,8 @@ public class ViewDragLayout extends FrameLayout {
      * #HOVER_LINEAR_VERTICAL}
      */
     public Builder setLayoutType(@HoverMode int layoutType) {
-      instance.setLayoutType(layoutType);
+      config.options |= DragConfig.LAYOUT_TYPE;
+      config.layoutType = layoutType;
       return this;
     }
 
@@ -1044,7 +2369,7 @@ public class ViewDragLayout extends FrameLayout {
      * @param dragDirectionFlag drag flag
      */
     public Builder setDragDirectionFlag(@DragFlag int dragDirectionFlag) {
-      instance.setDragDirectionFlag(dragDirectionFlag);
+      config.setDragFlag(dragDirectionFlag);
       return this;
     }
 
@@ -1056,7 +2381,7 @@ public class ViewDragLayout extends FrameLayout {
      */
     public Builder setSpecificDragDirectionFlag(@IdRes int childId,
         @DragFlag int dragDirectionFlag) {
-      instance.setSpecificDragDirectionFlag(childId, dragDirectionFlag);
+      config.setSpecificDragFlag(childId, dragDirectionFlag);
       return this;
     }
 
@@ -1067,7 +2392,7 @@ public class ViewDragLayout extends FrameLayout {
      * @param edgeFlag tracking flag
      */
     public Builder setSpecificDragEdgeFlag(@IdRes int dragChildId, int edgeFlag) {
-      instance.setSpecificDragEdgeFlag(dragChildId, edgeFlag);
+      config.setSpecificEdgeFlag(dragChildId, edgeFlag);
       return this;
     }
 
@@ -1078,7 +2403,20 @@ public class ViewDragLayout extends FrameLayout {
      * @param rightX left distance
      */
     public Builder setDragX(int leftX, int rightX) {
-      instance.setDragX(leftX, rightX);
+      config.setDragX(leftX, rightX, null);
+      return this;
+    }
+
+    /**
+     * Sets all child's drag distance x with extra snap positions, a released child settles to the
+     * nearest one after its fling is projected.
+     *
+     * @param leftX left distance
+     * @param rightX right distance
+     * @param anchorsX snap positions as offsets from the start point, the ends are always included
+     */
+    public Builder setDragX(int leftX, int rightX, int... anchorsX) {
+      config.setDragX(leftX, rightX, anchorsX);
       return this;
     }
 
@@ -1090,7 +2428,20 @@ public class ViewDragLayout extends FrameLayout {
      * @param rightX right distance
      */
     public Builder setSpecificDragX(@IdRes int childId, int leftX, int rightX) {
-      instance.setSpecificDragX(childId, leftX, rightX);
+      config.setSpecificDragX(childId, leftX, rightX, null);
+      return this;
+    }
+
+    /**
+     * Sets specific child's drag distance x with extra snap positions
+     *
+     * @param childId specific child id
+     * @param leftX left distance
+     * @param rightX right distance
+     * @param anchorsX snap positions as offsets from the start point, the ends are always included
+     */
+    public Builder setSpecificDragX(@IdRes int childId, int leftX, int rightX, int... anchorsX) {
+      config.setSpecificDragX(childId, leftX, rightX, anchorsX);
       return this;
     }
 
@@ -1101,7 +2452,20 @@ public class ViewDragLayout extends FrameLayout {
      * @param bottomY bottom distance
      */
     public Builder setDragY(int topY, int bottomY) {
-      instance.setDragY(topY, bottomY);
+      config.setDragY(topY, bottomY, null);
+      return this;
+    }
+
+    /**
+     * Sets all child's drag distance y with extra snap positions, a released child settles to the
+     * nearest one after its fling is projected.
+     *
+     * @param topY top distance
+     * @param bottomY bottom distance
+     * @param anchorsY snap positions as offsets from the start point, the ends are always included
+     */
+    public Builder setDragY(int topY, int bottomY, int... anchorsY) {
+      config.setDragY(topY, bottomY, anchorsY);
       return this;
     }
 
@@ -1113,7 +2477,20 @@ public class ViewDragLayout extends FrameLayout {
      * @param bottomY bottom distance
      */
     public Builder setSpecificDragY(@IdRes int childId, int topY, int bottomY) {
-      instance.setSpecificDragY(childId, topY, bottomY);
+      config.setSpecificDragY(childId, topY, bottomY, null);
+      return this;
+    }
+
+    /**
+     * Sets specific child's drag distance y with extra snap positions
+     *
+     * @param childId specific child id
+     * @param topY top distance
+     * @param bottomY bottom distance
+     * @param anchorsY snap positions as offsets from the start point, the ends are always included
+     */
+    public Builder setSpecificDragY(@IdRes int childId, int topY, int bottomY, int... anchorsY) {
+      config.setSpecificDragY(childId, topY, bottomY, anchorsY);
       return this;
     }
 
@@ -1122,18 +2499,35 @@ public class ViewDragLayout extends FrameLayout {
      * [NOTICED] this only work at linear mode
      */
     public Builder asChain() {
-      instance.asChain(true);
+      config.options |= DragConfig.CHAIN;
+      config.chainEnable = true;
       return this;
     }
 
     /**
-     * Chained view together while drag
+     * Chained view together while drag, the views move as far as the target, in the opposite
+     * direction on x when the target only drags {@link #RIGHT}
      *
      * @param targetId target root view
      * @param chainId the view you want to asChain together
      */
     public Builder hookWith(@IdRes int targetId, int... chainId) {
-      instance.hookWithSpecificView(targetId, chainId);
+      config.setHooks(targetId, chainId);
+      return this;
+    }
+
+    /**
+     * Hooks one view to the target with ratios, e.g. 0.5f for a parallax that moves half as far.
+     * A hooked view can hook other views too, the hooks must not make a cycle.
+     *
+     * @param targetId target root view
+     * @param hookId the view which follows the target
+     * @param ratioX x movement of the view per x movement of the target, negative reverses it
+     * @param ratioY y movement of the view per y movement of the target, negative reverses it
+     */
+    public Builder hookWithRatio(@IdRes int targetId, @IdRes int hookId, float ratioX,
+        float ratioY) {
+      config.addHook(targetId, hookId, ratioX, ratioY);
       return this;
     }
 
@@ -1141,7 +2535,8 @@ public class ViewDragLayout extends FrameLayout {
      * No drags, just pull
      */
     public Builder asPull() {
-      instance.asPull(true);
+      config.options |= DragConfig.PULL;
+      config.pullEnable = true;
       return this;
     }
 
@@ -1151,7 +2546,30 @@ public class ViewDragLayout extends FrameLayout {
      * @param speedFactor factor that directly proportional to speed
      */
     public Builder speedFactor(float speedFactor) {
-      instance.setSpeedFactor(speedFactor);
+      config.options |= DragConfig.SPEED_FACTOR;
+      config.speedFactor = speedFactor;
+      return this;
+    }
+
+    /**
+     * Sets the drag resistance of all children, e.g. a rubber band past the drag distance, null
+     * moves linearly and stops at the bounds
+     *
+     * @param resistance drag resistance
+     */
+    public Builder resistance(Resistance resistance) {
+      config.setResistance(resistance);
+      return this;
+    }
+
+    /**
+     * Sets the drag resistance of the specific view
+     *
+     * @param childId the specific view id
+     * @param resistance drag resistance
+     */
+    public Builder setSpecificResistance(@IdRes int childId, Resistance resistance) {
+      config.setSpecificResistance(childId, resistance);
       return this;
     }
 
@@ -1161,17 +2579,83 @@ public class ViewDragLayout extends FrameLayout {
      * @param pressTime press time
      */
     public Builder pressTime(long pressTime) {
-      instance.setPressTime(pressTime);
+      config.options |= DragConfig.PRESS_TIME;
+      config.pressTime = pressTime;
       return this;
     }
 
     /**
-     * Must be called when you create a layout options
+     * Sets how a drag starts, {@link #START_PRESS_TIME} holds the moves for the press time,
+     * {@link #START_INTENT} starts the drag as soon as the touch leaves the touch slop in a
+     * direction the child can be dragged.
+     *
+     * @param startMode drag start mode
+     */
+    public Builder startMode(@StartMode int startMode) {
+      config.options |= DragConfig.START_MODE;
+      config.startMode = startMode;
+      return this;
+    }
+
+    /**
+     * Resamples the drag position to the time of the frame that shows it, and estimates the
+     * release velocity from all the batched touch samples. It evens the per-frame deltas on high
+     * refresh rate displays.
+     *
+     * @param resampleInput true enable, false otherwise
+     */
+    public Builder resampleInput(boolean resampleInput) {
+      config.options |= DragConfig.INPUT_RESAMPLING;
+      config.inputResamplingEnable = resampleInput;
+      return this;
+    }
+
+    /**
+     * Collects the drag metrics of the layout, read them from {@link #getDragMetrics()}. The
+     * recording allocates nothing, disabling drops the collected values.
+     *
+     * @param collectMetrics true enable, false otherwise
+     */
+    public Builder collectMetrics(boolean collectMetrics) {
+      config.options |= DragConfig.METRICS;
+      config.metricsEnable = collectMetrics;
+      return this;
+    }
+
+    /**
+     * Promotes the dragged or settling child to hardware layer, also its hooked children and, in
+     * chain mode, the other children. The layers are demoted when the drag goes back to idle.
+     *
+     * @param promoteLayers true enable, false otherwise
+     */
+    public Builder promoteLayers(boolean promoteLayers) {
+      config.options |= DragConfig.LAYER_PROMOTION;
+      config.layerPromotionEnable = promoteLayers;
+      return this;
+    }
+
+    /**
+     * Sets the physics of the release settle, e.g. {@link
+     * com.ns.greg.library.easy_view_dragger.core.SpringSettleEngine} or {@link
+     * com.ns.greg.library.easy_view_dragger.core.DecaySettleEngine}. The settle runs on the display
+     * frames, null restores the default {@link DurationSettleEngine}.
+     *
+     * @param settleEngine settle physics
+     */
+    public Builder settleEngine(SettleEngine settleEngine) {
+      config.options |= DragConfig.SETTLE_ENGINE;
+      config.settleEngine = settleEngine;
+      return this;
+    }
+
+    /**
+     * Must be called when you create a layout options, all the options are applied in one pass,
+     * immediately if the layout is already laid out, otherwise on the first layout.
+     *
+     * @throws IllegalArgumentException if the hooks make a cycle, nothing is applied then
      */
     public void create() {
-      instance.requestLayout();
-      instance.invalidate();
+      instance.applyConfig(config);
     }
   }
 }
-
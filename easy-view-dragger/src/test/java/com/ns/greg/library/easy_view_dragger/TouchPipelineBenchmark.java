@@ -0,0 +1,215 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Headless benchmark of the touch pipeline, it feeds synthetic {@link MotionEvent} streams
+ * through {@link ViewDragLayout#onInterceptTouchEvent(MotionEvent)} and
+ * {@link ViewDragLayout#onTouchEvent(MotionEvent)} and reports the latency and the allocated bytes
+ * per event of each scenario.
+ *
+ * Run it with {@code ./gradlew :easy-view-dragger:testDebugUnitTest -Pbenchmark --tests
+ * *TouchPipelineBenchmark}.
+ */
+@RunWith(RobolectricTestRunner.class) @Config(sdk = 26)
+public class TouchPipelineBenchmark {
+
+  private static final int WIDTH = 1080;
+  private static final int HEIGHT = 300;
+  private static final int DRAG_DISTANCE = 300;
+  private static final int MOVE_COUNT = 120;
+  private static final int WARM_UP_ROUNDS = 50;
+  private static final int MEASURE_ROUNDS = 200;
+
+  /*--------------------------------
+   * Scenarios
+   *-------------------------------*/
+
+  private static final int PLAIN = 0;
+  private static final int CHAIN = 1;
+  private static final int HOOK = 2;
+  private static final int PULL = 3;
+
+  private static final String[] CONFIG_NAMES = { "plain", "chain", "hook", "pull" };
+  private static final String[] MODE_NAMES =
+      { "HOVER_FRAME_OVERLAY", "HOVER_LINEAR_HORIZONTAL", "HOVER_LINEAR_VERTICAL" };
+
+  private Activity activity;
+
+  @Before public void setUp() {
+    Assume.assumeTrue("Benchmarks only run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+    activity = Robolectric.buildActivity(Activity.class).setup().get();
+  }
+
+  @Test public void touchPipeline() {
+    System.out.println(String.format(Locale.US, "%-24s %-6s %10s %10s %10s %12s", "mode",
+        "config", "mean ns", "p50 ns", "p99 ns", "bytes/event"));
+    for (int mode = ViewDragLayout.HOVER_FRAME_OVERLAY;
+        mode <= ViewDragLayout.HOVER_LINEAR_VERTICAL; mode++) {
+      for (int config = PLAIN; config <= PULL; config++) {
+        // Pull only works at frame overlay mode
+        if (config == PULL && mode != ViewDragLayout.HOVER_FRAME_OVERLAY) {
+          continue;
+        }
+
+        runScenario(mode, config);
+      }
+    }
+  }
+
+  private void runScenario(@ViewDragLayout.HoverMode int mode, int config) {
+    ViewDragLayout layout = createLayout(mode, config);
+    boolean vertical = mode == ViewDragLayout.HOVER_LINEAR_VERTICAL || config == PULL;
+    MotionEvent[] events = createEvents(vertical);
+    long[] latencies = new long[events.length * MEASURE_ROUNDS];
+    int childCount = layout.getChildCount();
+    int[] lefts = new int[childCount];
+    int[] tops = new int[childCount];
+    for (int i = 0; i < childCount; i++) {
+      lefts[i] = layout.getChildAt(i).getLeft();
+      tops[i] = layout.getChildAt(i).getTop();
+    }
+
+    for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+      dispatch(layout, events, null, 0);
+      reset(layout, lefts, tops);
+    }
+
+    com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+    for (int round = 0; round < MEASURE_ROUNDS; round++) {
+      dispatch(layout, events, latencies, round * events.length);
+      reset(layout, lefts, tops);
+    }
+
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+    for (MotionEvent event : events) {
+      event.recycle();
+    }
+
+    long total = 0;
+    for (long latency : latencies) {
+      total += latency;
+    }
+
+    Arrays.sort(latencies);
+    System.out.println(String.format(Locale.US, "%-24s %-6s %10d %10d %10d %12.1f",
+        MODE_NAMES[mode], CONFIG_NAMES[config], total / latencies.length,
+        latencies[latencies.length / 2], latencies[latencies.length * 99 / 100],
+        (double) allocated / latencies.length));
+  }
+
+  /**
+   * Dispatches the events like {@link ViewGroup#dispatchTouchEvent(MotionEvent)} does for a
+   * layout without touch targets.
+   */
+  private static void dispatch(ViewDragLayout layout, MotionEvent[] events, long[] latencies,
+      int offset) {
+    for (int i = 0; i < events.length; i++) {
+      MotionEvent event = events[i];
+      long start = System.nanoTime();
+      layout.onInterceptTouchEvent(event);
+      layout.onTouchEvent(event);
+      if (latencies != null) {
+        latencies[offset + i] = System.nanoTime() - start;
+      }
+    }
+  }
+
+  /**
+   * Stops the settling and moves the children back for the next round, this is not measured.
+   */
+  private static void reset(ViewDragLayout layout, int[] lefts, int[] tops) {
+    layout.getViewDragHelper().abort();
+    // Also cancels the settle started by the up
+    layout.setDragOffsets(null);
+    for (int i = 0; i < lefts.length; i++) {
+      View child = layout.getChildAt(i);
+      child.offsetLeftAndRight(lefts[i] - child.getLeft());
+      child.offsetTopAndBottom(tops[i] - child.getTop());
+    }
+  }
+
+  private ViewDragLayout createLayout(@ViewDragLayout.HoverMode int mode, int config) {
+    ViewDragLayout layout = new ViewDragLayout(activity);
+    View hover = new View(activity);
+    hover.setId(View.generateViewId());
+    View bottom = new View(activity);
+    bottom.setId(View.generateViewId());
+    layout.addView(hover, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+    layout.addView(bottom, new ViewGroup.LayoutParams(DRAG_DISTANCE, HEIGHT));
+    activity.setContentView(layout, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+
+    ViewDragLayout.Builder builder = new ViewDragLayout.Builder(layout).setLayoutType(mode)
+        .setSpecificDragDirectionFlag(hover.getId(), ViewDragLayout.DIRECTION_ALL)
+        .setDragX(DRAG_DISTANCE, DRAG_DISTANCE)
+        .setDragY(DRAG_DISTANCE, DRAG_DISTANCE)
+        .pressTime(0);
+    switch (config) {
+      case CHAIN:
+        builder.asChain();
+        break;
+
+      case HOOK:
+        builder.setSpecificDragX(bottom.getId(), DRAG_DISTANCE, DRAG_DISTANCE)
+            .hookWith(hover.getId(), bottom.getId());
+        break;
+
+      case PULL:
+        builder.asPull();
+        break;
+
+      default:
+        break;
+    }
+
+    builder.create();
+    layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    layout.layout(0, 0, WIDTH, HEIGHT);
+    return layout;
+  }
+
+  /**
+   * Creates a DOWN, back and forth MOVEs and an UP on the first child, 8ms apart.
+   */
+  private static MotionEvent[] createEvents(boolean vertical) {
+    MotionEvent[] events = new MotionEvent[MOVE_COUNT + 2];
+    long downTime = SystemClock.uptimeMillis();
+    float x = WIDTH / 2f;
+    float y = HEIGHT / 2f;
+    events[0] = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, y, 0);
+    for (int i = 1; i <= MOVE_COUNT; i++) {
+      // Triangle wave within the drag distance
+      int step = i % 40 < 20 ? -6 : 6;
+      if (vertical) {
+        y += step;
+      } else {
+        x += step;
+      }
+
+      events[i] = MotionEvent.obtain(downTime, downTime + i * 8, MotionEvent.ACTION_MOVE, x, y, 0);
+    }
+
+    events[MOVE_COUNT + 1] =
+        MotionEvent.obtain(downTime, downTime + (MOVE_COUNT + 1) * 8, MotionEvent.ACTION_UP, x, y,
+            0);
+    return events;
+  }
+}
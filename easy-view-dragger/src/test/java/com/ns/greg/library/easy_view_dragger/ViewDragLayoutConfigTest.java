@@ -0,0 +1,289 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.app.Activity;
+import android.support.v4.widget.ViewDragHelper;
+import android.view.View;
+import android.view.ViewGroup;
+import com.ns.greg.library.easy_view_dragger.core.DragStateTable;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Options of {@link ViewDragLayout.Builder} and {@link DragSpec} applied before and after the
+ * first layout.
+ */
+@RunWith(RobolectricTestRunner.class) @Config(sdk = 26)
+public class ViewDragLayoutConfigTest {
+
+  private static final int WIDTH = 1080;
+  private static final int HEIGHT = 300;
+  private static final int CHILD_WIDTH = 200;
+
+  private Activity activity;
+  private int[] childIds;
+
+  @Before public void setUp() {
+    activity = Robolectric.buildActivity(Activity.class).setup().get();
+    childIds = new int[4];
+    for (int i = 0; i < childIds.length; i++) {
+      childIds[i] = View.generateViewId();
+    }
+  }
+
+  @Test public void sameStatesBeforeAndAfterLayout() {
+    // Both builders wait for the first layout and are merged
+    ViewDragLayout before = createLayout(true);
+    configure(before);
+    layOut(before);
+
+    // Each builder is applied immediately
+    ViewDragLayout after = createLayout(true);
+    layOut(after);
+    configure(after);
+    layOut(after);
+
+    assertEquals(describe(before), describe(after));
+  }
+
+  @Test public void laterOptionsOverrideEarlierOnes() {
+    ViewDragLayout layout = createLayout(true);
+    configure(layout);
+    layOut(layout);
+
+    DragStateTable states = layout.getDragStates();
+    // The flag and the distance for all children override the specific ones of the first builder
+    int a = slot(layout, 0);
+    assertEquals(ViewDragLayout.LEFT | ViewDragLayout.RIGHT, states.getDragFlag(slot(layout, 2)));
+    assertEquals(states.getStartX(a) + 100, states.getMaxX(a));
+    assertEquals(3, states.getAnchorCountX(a));
+    assertEquals(ViewDragHelper.EDGE_LEFT, states.getEdgeFlag(a));
+    // The hooks of the second builder replace the first ones
+    assertEquals(1, states.getHookCount(a));
+    int hook = states.getHookStart(a);
+    assertEquals(slot(layout, 2), states.getHook(hook));
+    assertEquals(0.5f, states.getHookRatioX(hook), 0);
+    assertEquals(-1f, states.getHookRatioY(hook), 0);
+
+    int b = slot(layout, 1);
+    assertEquals(states.getStartX(b), states.getMinX(b));
+    assertEquals(states.getStartX(b) + 200, states.getMaxX(b));
+  }
+
+  @Test public void builderDoesNotChangeSharedSpec() {
+    DragSpec spec = new DragSpec.Builder()
+        .setDragDirectionFlag(ViewDragLayout.LEFT | ViewDragLayout.RIGHT)
+        .setDragX(50, 50)
+        .build();
+
+    // The builder goes to a copy of the pending spec options
+    ViewDragLayout extended = createLayout(false);
+    extended.setDragSpec(spec);
+    new ViewDragLayout.Builder(extended).setSpecificDragX(childIds[1], 0, 200)
+        .hookWith(childIds[0], childIds[1])
+        .create();
+    layOut(extended);
+
+    ViewDragLayout plain = createLayout(false);
+    plain.setDragSpec(spec);
+    layOut(plain);
+
+    DragStateTable states = extended.getDragStates();
+    int b = slot(extended, 1);
+    assertEquals(states.getStartX(b) + 200, states.getMaxX(b));
+    assertEquals(1, states.getHookCount(slot(extended, 0)));
+    assertEquals(distanceX(extended, 3), distanceX(plain, 3));
+
+    states = plain.getDragStates();
+    assertEquals(distanceX(plain, 3), distanceX(plain, 1));
+    assertEquals(0, states.getHookCount(slot(plain, 0)));
+    float density = plain.getResources().getDisplayMetrics().density;
+    assertEquals(0, spec.resolve(density).children.size());
+  }
+
+  @Test public void builderChangedAfterCreateIsNotApplied() {
+    ViewDragLayout layout = createLayout(false);
+    ViewDragLayout.Builder builder =
+        new ViewDragLayout.Builder(layout).setSpecificDragX(childIds[0], 0, 100);
+    builder.create();
+    new ViewDragLayout.Builder(layout).setSpecificDragX(childIds[1], 0, 200).create();
+    // The pending options are a copy of the builder
+    builder.setSpecificDragX(childIds[2], 0, 50);
+    layOut(layout);
+
+    DragStateTable states = layout.getDragStates();
+    assertEquals(100, distanceX(layout, 0));
+    assertEquals(200, distanceX(layout, 1));
+    assertFalse(states.hasDistanceX(slot(layout, 2)));
+  }
+
+  @Test public void rejectedCycleKeepsLayout() {
+    ViewDragLayout layout = createLayout(true);
+    new ViewDragLayout.Builder(layout).hookWith(childIds[0], childIds[1]).create();
+    // Against the pending hooks
+    assertRejected(new ViewDragLayout.Builder(layout).hookWith(childIds[1], childIds[0]));
+    layOut(layout);
+
+    // Against the hooks which are set
+    assertRejected(new ViewDragLayout.Builder(layout).hookWith(childIds[1], childIds[2])
+        .hookWith(childIds[2], childIds[0]));
+    layout.removeView(layout.getChildAt(3));
+    layOut(layout);
+
+    DragStateTable states = layout.getDragStates();
+    int a = slot(layout, 0);
+    assertEquals(1, states.getHookCount(a));
+    assertEquals(slot(layout, 1), states.getHook(states.getHookStart(a)));
+    assertEquals(0, states.getHookCount(slot(layout, 1)));
+    assertEquals(0, states.getHookCount(slot(layout, 2)));
+  }
+
+  private static void assertRejected(ViewDragLayout.Builder builder) {
+    try {
+      builder.create();
+      fail("The cycle is not rejected");
+    } catch (IllegalArgumentException expected) {
+      // The layout is unchanged
+    }
+  }
+
+  /**
+   * Sets the options with two builders, the second one overrides some options of the first.
+   */
+  private void configure(ViewDragLayout layout) {
+    new ViewDragLayout.Builder(layout)
+        .setSpecificDragDirectionFlag(childIds[2], ViewDragLayout.TOP | ViewDragLayout.BOTTOM)
+        .setSpecificDragX(childIds[0], 10, 10)
+        .hookWith(childIds[0], childIds[1])
+        .create();
+    new ViewDragLayout.Builder(layout)
+        .setDragDirectionFlag(ViewDragLayout.LEFT | ViewDragLayout.RIGHT)
+        .setDragX(100, 100, 50)
+        .setSpecificDragX(childIds[1], 0, 200)
+        .setSpecificDragY(childIds[2], 40, 80, 20)
+        .setSpecificDragEdgeFlag(childIds[0], ViewDragHelper.EDGE_LEFT)
+        .hookWithRatio(childIds[0], childIds[2], 0.5f, -1f)
+        .hookWithRatio(childIds[1], childIds[3], 2f, 1f)
+        .create();
+  }
+
+  /**
+   * Describes the drag states of the children by child index, so layouts can be compared.
+   */
+  private static String describe(ViewDragLayout layout) {
+    DragStateTable states = layout.getDragStates();
+    StringBuilder builder = new StringBuilder();
+    int count = layout.getChildCount();
+    for (int i = 0; i < count; i++) {
+      int slot = slot(layout, i);
+      builder.append(i)
+          .append(": flag ")
+          .append(states.getDragFlag(slot))
+          .append(", edge ")
+          .append(states.getEdgeFlag(slot));
+      if (states.hasDistanceX(slot)) {
+        builder.append(", x ")
+            .append(states.getMinX(slot))
+            .append(' ')
+            .append(states.getStartX(slot))
+            .append(' ')
+            .append(states.getMaxX(slot));
+        appendAnchors(builder, states, states.getAnchorStartX(slot),
+            states.getAnchorCountX(slot));
+      }
+
+      if (states.hasDistanceY(slot)) {
+        builder.append(", y ")
+            .append(states.getMinY(slot))
+            .append(' ')
+            .append(states.getStartY(slot))
+            .append(' ')
+            .append(states.getMaxY(slot));
+        appendAnchors(builder, states, states.getAnchorStartY(slot),
+            states.getAnchorCountY(slot));
+      }
+
+      int hookStart = states.getHookStart(slot);
+      int hookEnd = hookStart + states.getHookCount(slot);
+      for (int hook = hookStart; hook < hookEnd; hook++) {
+        builder.append(", hook ")
+            .append(indexOf(layout, states.getHook(hook)))
+            .append(' ')
+            .append(states.getHookRatioX(hook))
+            .append(' ')
+            .append(states.getHookRatioY(hook));
+      }
+
+      builder.append('\n');
+    }
+
+    return builder.toString();
+  }
+
+  private static void appendAnchors(StringBuilder builder, DragStateTable states, int start,
+      int count) {
+    builder.append(" [");
+    for (int i = 0; i < count; i++) {
+      builder.append(' ').append(states.getAnchor(start + i));
+    }
+
+    builder.append(" ]");
+  }
+
+  private static int distanceX(ViewDragLayout layout, int index) {
+    DragStateTable states = layout.getDragStates();
+    int slot = slot(layout, index);
+    return states.getMaxX(slot) - states.getMinX(slot);
+  }
+
+  private static int slot(ViewDragLayout layout, int index) {
+    return ((ViewDragLayout.LayoutParams) layout.getChildAt(index).getLayoutParams()).slot;
+  }
+
+  private static int indexOf(ViewDragLayout layout, int slot) {
+    int count = layout.getChildCount();
+    for (int i = 0; i < count; i++) {
+      if (slot(layout, i) == slot) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Creates the layout with its children, it's not attached so nothing lays it out before the
+   * test does.
+   *
+   * @param linear true to lay the children out side by side, so each has its own start point
+   */
+  private ViewDragLayout createLayout(boolean linear) {
+    ViewDragLayout layout = new ViewDragLayout(activity);
+    for (int childId : childIds) {
+      View child = new View(activity);
+      child.setId(childId);
+      layout.addView(child, new ViewGroup.LayoutParams(CHILD_WIDTH, HEIGHT));
+    }
+
+    if (linear) {
+      new ViewDragLayout.Builder(layout)
+          .setLayoutType(ViewDragLayout.HOVER_LINEAR_HORIZONTAL)
+          .create();
+    }
+
+    return layout;
+  }
+
+  private static void layOut(ViewDragLayout layout) {
+    layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    layout.layout(0, 0, WIDTH, HEIGHT);
+  }
+}
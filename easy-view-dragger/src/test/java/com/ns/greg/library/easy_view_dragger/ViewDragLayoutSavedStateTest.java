@@ -0,0 +1,167 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.app.Activity;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.view.View;
+import android.view.ViewGroup;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Save and restore round trip of {@link ViewDragLayout.SavedState}.
+ */
+@RunWith(RobolectricTestRunner.class) @Config(sdk = 26)
+public class ViewDragLayoutSavedStateTest {
+
+  private static final int WIDTH = 1080;
+  private static final int HEIGHT = 300;
+
+  private Activity activity;
+  private int openId;
+  private int partialId;
+  private int verticalId;
+
+  @Before public void setUp() {
+    activity = Robolectric.buildActivity(Activity.class).setup().get();
+    openId = View.generateViewId();
+    partialId = View.generateViewId();
+    verticalId = View.generateViewId();
+  }
+
+  @Test public void savesChildrenWithIds() {
+    ViewDragLayout layout = createLayout(200);
+    layOut(layout);
+    layout.findViewById(openId).offsetLeftAndRight(200);
+    layout.findViewById(partialId).offsetLeftAndRight(50);
+    layout.findViewById(verticalId).offsetTopAndBottom(100);
+
+    ViewDragLayout.SavedState state = parcel(layout.onSaveInstanceState());
+    // The child without id is not saved
+    assertArrayEquals(new int[] { openId, partialId, verticalId }, state.childIds);
+    assertArrayEquals(new int[] { 200, 0, 50, 0, 0, 100 }, state.offsets);
+    assertArrayEquals(new int[] {
+        ViewDragLayout.SavedState.OPEN_MAX_X, 0, ViewDragLayout.SavedState.OPEN_MAX_Y
+    }, state.openFlags);
+  }
+
+  @Test public void restoresBeforeFirstLayout() {
+    Parcelable state = saveDragged();
+
+    // The open child follows its new distance, the partial one keeps its offset
+    ViewDragLayout restored = createLayout(300);
+    restored.onRestoreInstanceState(state);
+    layOut(restored);
+    assertRestored(restored, 300);
+  }
+
+  @Test public void restoresAfterLayout() {
+    Parcelable state = saveDragged();
+
+    ViewDragLayout restored = createLayout(300);
+    layOut(restored);
+    restored.onRestoreInstanceState(state);
+    assertRestored(restored, 300);
+  }
+
+  @Test public void restoresBeforeConfig() {
+    Parcelable state = saveDragged();
+
+    ViewDragLayout restored = createLayout(0);
+    restored.onRestoreInstanceState(state);
+    configure(restored, 200);
+    layOut(restored);
+    assertRestored(restored, 200);
+  }
+
+  @Test public void restoredOffsetsStayInDistance() {
+    ViewDragLayout layout = createLayout(200);
+    layOut(layout);
+    layout.findViewById(partialId).offsetLeftAndRight(150);
+    Parcelable state = parcel(layout.onSaveInstanceState());
+
+    // The partial child has a shorter distance now
+    ViewDragLayout restored = createLayout(200);
+    new ViewDragLayout.Builder(restored).setSpecificDragX(partialId, 0, 100).create();
+    restored.onRestoreInstanceState(state);
+    layOut(restored);
+    assertEquals(100, restored.findViewById(partialId).getLeft());
+  }
+
+  private Parcelable saveDragged() {
+    ViewDragLayout layout = createLayout(200);
+    layOut(layout);
+    layout.findViewById(openId).offsetLeftAndRight(200);
+    layout.findViewById(partialId).offsetLeftAndRight(50);
+    layout.findViewById(verticalId).offsetTopAndBottom(100);
+    return parcel(layout.onSaveInstanceState());
+  }
+
+  private void assertRestored(ViewDragLayout layout, int openDistance) {
+    assertEquals(openDistance, layout.findViewById(openId).getLeft());
+    assertEquals(50, layout.findViewById(partialId).getLeft());
+    assertEquals(100, layout.findViewById(verticalId).getTop());
+    assertEquals(0, layout.getChildAt(3).getLeft());
+  }
+
+  /**
+   * Writes the state to a parcel and reads it back, as the activity does.
+   */
+  private static ViewDragLayout.SavedState parcel(Parcelable state) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      state.writeToParcel(parcel, 0);
+      parcel.setDataPosition(0);
+      return new ViewDragLayout.SavedState(parcel, ViewDragLayout.class.getClassLoader());
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  /**
+   * Creates the layout with its children, it's not attached so nothing lays it out before the
+   * test does. The children are configured with the open child's distance x if it's not 0.
+   */
+  private ViewDragLayout createLayout(int openDistance) {
+    ViewDragLayout layout = new ViewDragLayout(activity);
+    addChild(layout, openId);
+    addChild(layout, partialId);
+    addChild(layout, verticalId);
+    addChild(layout, View.NO_ID);
+    if (openDistance != 0) {
+      configure(layout, openDistance);
+    }
+
+    return layout;
+  }
+
+  private void configure(ViewDragLayout layout, int openDistance) {
+    new ViewDragLayout.Builder(layout)
+        .setSpecificDragDirectionFlag(openId, ViewDragLayout.RIGHT)
+        .setSpecificDragX(openId, 0, openDistance)
+        .setSpecificDragDirectionFlag(partialId, ViewDragLayout.RIGHT)
+        .setSpecificDragX(partialId, 0, 200)
+        .setSpecificDragDirectionFlag(verticalId, ViewDragLayout.BOTTOM)
+        .setSpecificDragY(verticalId, 0, 100)
+        .create();
+  }
+
+  private void addChild(ViewDragLayout layout, int id) {
+    View child = new View(activity);
+    child.setId(id);
+    layout.addView(child, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+  }
+
+  private static void layOut(ViewDragLayout layout) {
+    layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    layout.layout(0, 0, WIDTH, HEIGHT);
+  }
+}
@@ -0,0 +1,100 @@
+package com.ns.greg.library.easy_view_dragger;
+
+import android.app.Activity;
+import android.view.View;
+import android.view.ViewGroup;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Settles of {@link ViewDragLayout#openViews(int, Runnable, int...)} when children are removed.
+ */
+@RunWith(RobolectricTestRunner.class) @Config(sdk = 26)
+public class ViewDragLayoutSettleTest {
+
+  private static final int WIDTH = 1080;
+  private static final int HEIGHT = 300;
+
+  private Activity activity;
+  private int firstId;
+  private int secondId;
+  private int endCount;
+
+  @Before public void setUp() {
+    activity = Robolectric.buildActivity(Activity.class).setup().get();
+    firstId = View.generateViewId();
+    secondId = View.generateViewId();
+    endCount = 0;
+  }
+
+  @Test public void removedChildDoesNotHoldBackEndAction() {
+    ViewDragLayout layout = createLayout();
+    layout.openViews(ViewDragLayout.RIGHT, new Runnable() {
+      @Override public void run() {
+        endCount++;
+      }
+    });
+    assertEquals(ViewDragLayout.STATE_SETTLING, layout.getDragState());
+
+    // The other child is still settling
+    layout.removeView(layout.findViewById(firstId));
+    assertEquals(ViewDragLayout.STATE_SETTLING, layout.getDragState());
+    assertEquals(0, endCount);
+
+    layout.removeView(layout.findViewById(secondId));
+    assertEquals(ViewDragLayout.STATE_IDLE, layout.getDragState());
+    assertEquals(1, endCount);
+  }
+
+  @Test public void reusedSlotIsNotMovedBySettle() {
+    ViewDragLayout layout = createLayout();
+    View first = layout.findViewById(firstId);
+    int slot = ((ViewDragLayout.LayoutParams) first.getLayoutParams()).slot;
+    layout.openViews(ViewDragLayout.RIGHT, null, firstId);
+    layout.removeView(first);
+
+    // The next child gets the slot of the removed one
+    View next = new View(activity);
+    layout.addView(next, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+    assertEquals(slot, ((ViewDragLayout.LayoutParams) next.getLayoutParams()).slot);
+    layOut(layout);
+
+    ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    assertEquals(0, next.getLeft());
+    assertEquals(0, first.getLeft());
+  }
+
+  /**
+   * Creates the laid out layout with two children which open to the right.
+   */
+  private ViewDragLayout createLayout() {
+    ViewDragLayout layout = new ViewDragLayout(activity);
+    addChild(layout, firstId);
+    addChild(layout, secondId);
+    new ViewDragLayout.Builder(layout)
+        .setDragDirectionFlag(ViewDragLayout.RIGHT)
+        .setDragX(0, 200)
+        .create();
+    layOut(layout);
+    return layout;
+  }
+
+  private void addChild(ViewDragLayout layout, int id) {
+    View child = new View(activity);
+    child.setId(id);
+    layout.addView(child, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+  }
+
+  private static void layOut(ViewDragLayout layout) {
+    layout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    layout.layout(0, 0, WIDTH, HEIGHT);
+  }
+}